@@ -0,0 +1,103 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 使用 Vector API 的扫描实现，每次比较或累加一整个向量（AVX2 下 8 个 int，AVX-512 下 16 个 int）
+ *
+ * 依赖 JDK 16 以上的孵化模块 jdk.incubator.vector，因此放在 src 之外单独编译：
+ * javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp out -d out src-vector/com/n0texpecterr0r/datastructure/linear/VectorIntKernels.java
+ * 运行时同样需要 --add-modules jdk.incubator.vector，否则 IntArrayList 会使用 ScalarIntKernels
+ */
+final class VectorIntKernels implements IntKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // 与 INTS 位宽相同，lane 数为其一半，sum 时把一个 int 向量拆成两个 long 向量
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    VectorIntKernels() {
+    }
+
+    @Override
+    public int indexOf(int[] datas, int length, int data) {
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            VectorMask<Integer> hit = IntVector.fromArray(INTS, datas, i).eq(data);
+            if (hit.anyTrue()) {
+                return i + hit.firstTrue();
+            }
+        }
+        for (; i < length; i++) {
+            if (datas[i] == data) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int count(int[] datas, int length, int data) {
+        IntVector one = IntVector.broadcast(INTS, 1);
+        IntVector counts = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            counts = counts.add(one, IntVector.fromArray(INTS, datas, i).eq(data));
+        }
+        int c = counts.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            c += datas[i] == data ? 1 : 0;
+        }
+        return c;
+    }
+
+    @Override
+    public int min(int[] datas, int length) {
+        IntVector mins = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            mins = mins.min(IntVector.fromArray(INTS, datas, i));
+        }
+        int m = mins.reduceLanes(VectorOperators.MIN);
+        for (; i < length; i++) {
+            m = Math.min(m, datas[i]);
+        }
+        return m;
+    }
+
+    @Override
+    public int max(int[] datas, int length) {
+        IntVector maxs = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            maxs = maxs.max(IntVector.fromArray(INTS, datas, i));
+        }
+        int m = maxs.reduceLanes(VectorOperators.MAX);
+        for (; i < length; i++) {
+            m = Math.max(m, datas[i]);
+        }
+        return m;
+    }
+
+    /**
+     * int 向量的前后两半分别扩展为 long 向量再累加，不会溢出
+     */
+    @Override
+    public long sum(int[] datas, int length) {
+        LongVector low = LongVector.zero(LONGS);
+        LongVector high = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = INTS.loopBound(length); i < bound; i += INTS.length()) {
+            IntVector v = IntVector.fromArray(INTS, datas, i);
+            low = low.add(v.convertShape(VectorOperators.I2L, LONGS, 0));
+            high = high.add(v.convertShape(VectorOperators.I2L, LONGS, 1));
+        }
+        long s = low.add(high).reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            s += datas[i];
+        }
+        return s;
+    }
+}
@@ -0,0 +1,188 @@
+package com.n0texpecterr0r.datastructure.filter;
+
+/**
+ * 布谷鸟过滤器
+ *
+ * 每个 key 只保存一个 16 bit 的指纹，每个桶有 4 个槽位。
+ * 一个指纹只可能位于两个候选桶之一：i1 由 hash 决定，i2 = i1 ^ hash(指纹)，
+ * 由于使用的是异或，从任意一个桶和指纹都能算出另一个桶，因此指纹被踢出时可以直接搬到另一个桶。
+ * 查询时只需检查两个桶（每个桶 8 字节），与布隆过滤器不同，布谷鸟过滤器可以删除元素。
+ *
+ * 两个候选桶都满时随机踢出一个指纹，让它去它的另一个桶，如此重复。
+ * 超过一定次数仍然无法安放时，将最后被踢出的指纹暂存起来，此时过滤器已满，之后的插入都会失败
+ */
+public class CuckooFilter implements MembershipFilter {
+    private static final int SLOTS = 4;
+    private static final int MAX_KICKS = 500;
+
+    // 第 i 个桶占用 [i * SLOTS, i * SLOTS + SLOTS)，0 表示空槽位
+    private final short[] table;
+    private final int mask;
+    private int size;
+
+    // 过滤器已满时暂存的指纹
+    private boolean hasVictim;
+    private short victimFingerprint;
+    private int victimBucket;
+
+    // 选择踢出槽位用的随机数状态
+    private int seed = 0x2545F491;
+
+    /**
+     * @param expectedKeys 预计的 key 数量，按 95% 的装载率分配桶
+     */
+    public CuckooFilter(int expectedKeys) {
+        if (expectedKeys <= 0) {
+            throw new IllegalArgumentException("expectedKeys: " + expectedKeys);
+        }
+        long buckets = (long) Math.ceil(expectedKeys / (SLOTS * 0.95));
+        int capacity = 1;
+        while (capacity < buckets) {
+            if (capacity >= 1 << 28) {
+                throw new OutOfMemoryError("filter too large");
+            }
+            capacity <<= 1;
+        }
+        this.table = new short[capacity * SLOTS];
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public boolean add(int hash) {
+        if (hasVictim) {
+            return false;
+        }
+        long h = BlockedBloomFilter.mix(hash);
+        short fingerprint = fingerprintOf(h);
+        int i1 = (int) h & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (insert(i1, fingerprint) || insert(i2, fingerprint)) {
+            size++;
+            return true;
+        }
+
+        // 两个桶都满了，开始踢出
+        int bucket = (nextRandom() & 1) == 0 ? i1 : i2;
+        short current = fingerprint;
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int slot = bucket * SLOTS + (nextRandom() & (SLOTS - 1));
+            short kicked = table[slot];
+            table[slot] = current;
+            current = kicked;
+            bucket = alternate(bucket, current);
+            if (insert(bucket, current)) {
+                size++;
+                return true;
+            }
+        }
+        // 无法安放最后被踢出的指纹，暂存起来，保证不会漏判
+        hasVictim = true;
+        victimFingerprint = current;
+        victimBucket = bucket;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean mightContain(int hash) {
+        long h = BlockedBloomFilter.mix(hash);
+        short fingerprint = fingerprintOf(h);
+        int i1 = (int) h & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (contains(i1, fingerprint) || contains(i2, fingerprint)) {
+            return true;
+        }
+        return hasVictim && victimFingerprint == fingerprint
+                && (victimBucket == i1 || victimBucket == i2);
+    }
+
+    @Override
+    public boolean remove(int hash) {
+        long h = BlockedBloomFilter.mix(hash);
+        short fingerprint = fingerprintOf(h);
+        int i1 = (int) h & mask;
+        int i2 = alternate(i1, fingerprint);
+        if (delete(i1, fingerprint) || delete(i2, fingerprint)) {
+            size--;
+            if (hasVictim) {
+                // 腾出了空间，尝试重新安放暂存的指纹
+                hasVictim = !insert(victimBucket, victimFingerprint)
+                        && !insert(alternate(victimBucket, victimFingerprint), victimFingerprint);
+            }
+            return true;
+        }
+        if (hasVictim && victimFingerprint == fingerprint
+                && (victimBucket == i1 || victimBucket == i2)) {
+            hasVictim = false;
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) table.length * 2;
+    }
+
+    /**
+     * 查询需要比较两个桶共 8 个指纹，每个指纹误判的概率为 1/2^16，再乘以槽位的装载率
+     */
+    @Override
+    public double expectedFalsePositiveRate() {
+        double load = (double) size / table.length;
+        return 1 - Math.pow(1 - 1.0 / 65536, 2 * SLOTS * load);
+    }
+
+    /**
+     * 用 hash 的高 16 位作为指纹，0 表示空槽位，因此指纹不能为 0
+     */
+    private short fingerprintOf(long h) {
+        short fingerprint = (short) (h >>> 48);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private int alternate(int bucket, short fingerprint) {
+        return (bucket ^ (fingerprint * 0x5BD1E995)) & mask;
+    }
+
+    private boolean insert(int bucket, short fingerprint) {
+        int base = bucket * SLOTS;
+        for (int i = base; i < base + SLOTS; i++) {
+            if (table[i] == 0) {
+                table[i] = fingerprint;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(int bucket, short fingerprint) {
+        int base = bucket * SLOTS;
+        return table[base] == fingerprint || table[base + 1] == fingerprint
+                || table[base + 2] == fingerprint || table[base + 3] == fingerprint;
+    }
+
+    private boolean delete(int bucket, short fingerprint) {
+        int base = bucket * SLOTS;
+        for (int i = base; i < base + SLOTS; i++) {
+            if (table[i] == fingerprint) {
+                table[i] = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
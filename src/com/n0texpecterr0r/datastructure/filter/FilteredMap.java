@@ -0,0 +1,183 @@
+package com.n0texpecterr0r.datastructure.filter;
+
+import com.n0texpecterr0r.datastructure.tree.AVLMap;
+import com.n0texpecterr0r.datastructure.tree.RBMap;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 在任意 Map 前加一层过滤器的包装类
+ *
+ * 查询时先询问过滤器，过滤器确定 key 不存在时直接返回，不再进行树的查找，
+ * 对于大量查询不存在的 key 的场景，大部分查询只需要访问过滤器的一到两个缓存行。
+ *
+ * 项目中的 Map 没有公共接口，这里通过方法引用接入，例如：
+ * new FilteredMap<>(filter, map::get, map::put, map::remove)
+ *
+ * 包装时 map 必须为空，之后所有的修改都必须经过包装类，否则过滤器会漏判。
+ * 与各个 Map 一样，get 返回 null 视为 key 不存在，因此不支持 null 值
+ */
+public class FilteredMap<K, V> {
+    private final MembershipFilter filter;
+    private final Function<K, V> getter;
+    private final BiConsumer<K, V> putter;
+    private final Consumer<K> remover;
+
+    // 过滤器已满时不再使用过滤器，所有查询直接访问 map
+    private boolean bypass;
+
+    private long lookups;
+    // 被过滤器直接拦截的查询数
+    private long filtered;
+    // 通过了过滤器但 map 中不存在的查询数
+    private long falsePositives;
+
+    public FilteredMap(MembershipFilter filter, Function<K, V> getter,
+                       BiConsumer<K, V> putter, Consumer<K> remover) {
+        this.filter = filter;
+        this.getter = getter;
+        this.putter = putter;
+        this.remover = remover;
+    }
+
+    /**
+     * 过滤器中可能存在时才确认一次 map，避免同一个 key 在过滤器中重复记录
+     */
+    public void put(K key, V value) {
+        int hash = key.hashCode();
+        if (!bypass && (!filter.mightContain(hash) || getter.apply(key) == null)) {
+            if (!filter.add(hash)) {
+                bypass = true;
+            }
+        }
+        putter.accept(key, value);
+    }
+
+    public V get(K key) {
+        lookups++;
+        if (!bypass && !filter.mightContain(key.hashCode())) {
+            filtered++;
+            return null;
+        }
+        V value = getter.apply(key);
+        if (value == null && !bypass) {
+            falsePositives++;
+        }
+        return value;
+    }
+
+    /**
+     * 只有 key 确实存在时才从过滤器中删除，否则可能误删其他 key 的记录
+     */
+    public void remove(K key) {
+        int hash = key.hashCode();
+        if (!bypass && !filter.mightContain(hash)) {
+            return;
+        }
+        if (getter.apply(key) != null) {
+            remover.accept(key);
+            if (!bypass) {
+                filter.remove(hash);
+            }
+        }
+    }
+
+    public long lookups() {
+        return lookups;
+    }
+
+    /**
+     * 被过滤器直接拦截的查询数
+     */
+    public long filtered() {
+        return filtered;
+    }
+
+    public long falsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * 实际的误判率，即不存在的 key 中通过了过滤器的比例
+     */
+    public double falsePositiveRate() {
+        long negatives = filtered + falsePositives;
+        return negatives == 0 ? 0 : (double) falsePositives / negatives;
+    }
+
+    /**
+     * 过滤器平均每个 key 占用的 bit 数
+     */
+    public double bitsPerKey() {
+        return filter.size() == 0 ? 0 : filter.memoryBytes() * 8.0 / filter.size();
+    }
+
+    public boolean isBypassed() {
+        return bypass;
+    }
+
+    public MembershipFilter filter() {
+        return filter;
+    }
+
+    public static void main(String[] args) {
+        RBMap<String, Integer> map = new RBMap<>();
+        FilteredMap<String, Integer> filtered = new FilteredMap<>(new CuckooFilter(16),
+                map::get, map::put, map::remove);
+        filtered.put("haha", 1532);
+        filtered.put("hehe", 25432);
+        filtered.put("test", 3141);
+        filtered.put("N0tExpectErr0r", 10000);
+
+        System.out.println(filtered.get("hehe"));
+        filtered.remove("test");
+        filtered.remove("ADASD");
+        System.out.println(filtered.get("test"));
+        System.out.println(filtered.get("ADASD"));
+        System.out.println("size:" + map.size());
+
+        int n = 200000;
+        for (int round = 0; round < 3; round++) {
+            RBMap<Integer, Integer> plain = new RBMap<>();
+            RBMap<Integer, Integer> rbBloom = new RBMap<>();
+            AVLMap<Integer, Integer> avlCuckoo = new AVLMap<>();
+            FilteredMap<Integer, Integer> bloom = new FilteredMap<>(new BlockedBloomFilter(n, 10),
+                    rbBloom::get, rbBloom::put, rbBloom::remove);
+            FilteredMap<Integer, Integer> cuckoo = new FilteredMap<>(new CuckooFilter(n),
+                    avlCuckoo::get, avlCuckoo::put, avlCuckoo::remove);
+            for (int i = 0; i < n; i++) {
+                // 存在的 key 为偶数，查询奇数即为查询不存在的 key
+                plain.put(i * 2, i);
+                bloom.put(i * 2, i);
+                cuckoo.put(i * 2, i);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                plain.get(i * 2 + 1);
+            }
+            long plainTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                bloom.get(i * 2 + 1);
+            }
+            long bloomTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                cuckoo.get(i * 2 + 1);
+            }
+            long cuckooTime = System.nanoTime() - start;
+
+            System.out.println("miss round " + round
+                    + " rb:" + plainTime / n + "ns/op"
+                    + " bloom:" + bloomTime / n + "ns/op fpr:" + bloom.falsePositiveRate()
+                    + " bits/key:" + bloom.bitsPerKey()
+                    + " cuckoo:" + cuckooTime / n + "ns/op fpr:" + cuckoo.falsePositiveRate()
+                    + " bits/key:" + cuckoo.bitsPerKey());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.n0texpecterr0r.datastructure.filter;
+
+/**
+ * 概率型集合成员过滤器
+ *
+ * mightContain 返回 false 时元素一定不存在，返回 true 时元素可能存在（存在一定的误判率）。
+ * 过滤器只记录 key 的 hashCode，因此 hashCode 相同的不同 key 也只会造成误判，而不会漏判
+ */
+public interface MembershipFilter {
+
+    /**
+     * 记录一个 hash，过滤器已满无法继续插入时返回 false
+     */
+    boolean add(int hash);
+
+    boolean mightContain(int hash);
+
+    /**
+     * 删除一个之前记录过的 hash，不支持删除或未找到时返回 false
+     * 只能删除确实添加过的 hash，否则可能会误删其他元素的记录
+     */
+    boolean remove(int hash);
+
+    /**
+     * 当前记录的 hash 数量
+     */
+    int size();
+
+    /**
+     * 过滤器占用的内存大小（字节）
+     */
+    long memoryBytes();
+
+    /**
+     * 按当前元素数量估算的理论误判率
+     */
+    double expectedFalsePositiveRate();
+}
@@ -0,0 +1,265 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+/**
+ * 支持区间聚合查询的 long 列表
+ *
+ * 除了数据本身，还同时维护一棵树状数组（Fenwick tree）用于求区间和，
+ * 以及两棵自底向上的线段树分别用于求区间最小值和最大值。
+ * get 为 O(1)，set、increment 与 sum、min、max 查询均为 O(log n)；
+ * 从已有的 ArrayList 构建时三棵树都可以在 O(n) 内一次建好。
+ *
+ * 区间均为左闭右开，即 [from, to)
+ */
+public class AggregateList {
+    public static final int INIT_CAPACITY = 16;
+
+    private long[] datas;
+    // 树状数组，下标从 1 开始，fenwick[i] 保存 (i - lowbit(i), i] 的和
+    private long[] fenwick;
+    // 线段树，下标从 1 开始，叶子节点位于 [capacity, 2 * capacity)，空余的叶子为对应运算的单位元
+    private long[] mins;
+    private long[] maxs;
+    private int capacity;
+    private int length;
+
+    public AggregateList() {
+        this(INIT_CAPACITY);
+    }
+
+    public AggregateList(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    /**
+     * 以 source 中的数值构建，O(n)
+     */
+    public AggregateList(ArrayList<? extends Number> source) {
+        allocate(Math.max(INIT_CAPACITY, source.size()));
+        for (int i = 0; i < source.size(); i++) {
+            datas[i] = source.get(i).longValue();
+        }
+        length = source.size();
+        rebuild();
+    }
+
+    /**
+     * 在末尾加入元素
+     */
+    public void add(long value) {
+        if (length == capacity) {
+            if (capacity >= Integer.MAX_VALUE >> 2) {
+                throw new OutOfMemoryError("array too large");
+            }
+            long[] old = datas;
+            allocate(capacity << 1);
+            System.arraycopy(old, 0, datas, 0, length);
+            datas[length++] = value;
+            rebuild();
+            return;
+        }
+        int index = length++;
+        datas[index] = value;
+        // 新位置 i 负责 (i - lowbit(i), i]，其中除自身以外的部分都已经在列表中
+        int i = index + 1;
+        fenwick[i] = value + prefixSum(index) - prefixSum(i - (i & -i));
+        updateExtremes(index, value);
+    }
+
+    public long get(int index) {
+        checkBounds(index);
+        return datas[index];
+    }
+
+    public void set(int index, long value) {
+        checkBounds(index);
+        long delta = value - datas[index];
+        datas[index] = value;
+        addToFenwick(index, delta);
+        updateExtremes(index, value);
+    }
+
+    /**
+     * 将下标为 index 的元素加上 delta
+     */
+    public void increment(int index, long delta) {
+        set(index, get(index) + delta);
+    }
+
+    /**
+     * [from, to) 中元素的和，区间为空时返回 0
+     */
+    public long sum(int from, int to) {
+        checkRange(from, to);
+        return prefixSum(to) - prefixSum(from);
+    }
+
+    /**
+     * [from, to) 中的最小值，区间为空时抛出 IllegalArgumentException
+     */
+    public long min(int from, int to) {
+        checkNotEmpty(from, to);
+        long result = Long.MAX_VALUE;
+        for (int l = from + capacity, r = to + capacity; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = Math.min(result, mins[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = Math.min(result, mins[--r]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * [from, to) 中的最大值，区间为空时抛出 IllegalArgumentException
+     */
+    public long max(int from, int to) {
+        checkNotEmpty(from, to);
+        long result = Long.MIN_VALUE;
+        for (int l = from + capacity, r = to + capacity; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = Math.max(result, maxs[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = Math.max(result, maxs[--r]);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    /**
+     * 前 count 个元素的和
+     */
+    private long prefixSum(int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += fenwick[i];
+        }
+        return sum;
+    }
+
+    private void addToFenwick(int index, long delta) {
+        for (int i = index + 1; i <= length; i += i & -i) {
+            fenwick[i] += delta;
+        }
+    }
+
+    /**
+     * 更新叶子节点后沿父节点向上更新两棵线段树
+     */
+    private void updateExtremes(int index, long value) {
+        int i = index + capacity;
+        mins[i] = value;
+        maxs[i] = value;
+        for (i >>= 1; i > 0; i >>= 1) {
+            mins[i] = Math.min(mins[2 * i], mins[2 * i + 1]);
+            maxs[i] = Math.max(maxs[2 * i], maxs[2 * i + 1]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.datas = new long[capacity];
+        this.fenwick = new long[capacity + 1];
+        this.mins = new long[2 * capacity];
+        this.maxs = new long[2 * capacity];
+    }
+
+    /**
+     * 由 datas 重新构建三棵树，O(n)
+     * 树状数组中每个位置把自己的和加到负责它的下一个位置上；线段树从叶子开始逐层向上合并
+     */
+    private void rebuild() {
+        for (int i = 1; i <= length; i++) {
+            fenwick[i] += datas[i - 1];
+            int next = i + (i & -i);
+            if (next <= length) {
+                fenwick[next] += fenwick[i];
+            }
+        }
+        for (int i = 0; i < capacity; i++) {
+            mins[capacity + i] = i < length ? datas[i] : Long.MAX_VALUE;
+            maxs[capacity + i] = i < length ? datas[i] : Long.MIN_VALUE;
+        }
+        for (int i = capacity - 1; i > 0; i--) {
+            mins[i] = Math.min(mins[2 * i], mins[2 * i + 1]);
+            maxs[i] = Math.max(maxs[2 * i], maxs[2 * i + 1]);
+        }
+    }
+
+    private void checkBounds(int index) {
+        if (index >= length || index < 0) {
+            throw new IndexOutOfBoundsException("index: " + index + " length: " + length);
+        }
+    }
+
+    private void checkRange(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + " to: " + to + " length: " + length);
+        }
+    }
+
+    private void checkNotEmpty(int from, int to) {
+        checkRange(from, to);
+        if (from == to) {
+            throw new IllegalArgumentException("empty range: " + from);
+        }
+    }
+
+    public static void main(String[] args) {
+        ArrayList<Integer> series = new ArrayList<>();
+        int[] values = {5, -2, 9, 4, 4, 11, -7, 3};
+        for (int value : values) {
+            series.add(value);
+        }
+        AggregateList list = new AggregateList(series);
+        System.out.println("sum[1, 5):" + list.sum(1, 5) + " min[1, 5):" + list.min(1, 5)
+                + " max[0, 8):" + list.max(0, 8));
+        list.set(2, -20);
+        list.increment(0, 100);
+        list.add(50);
+        System.out.println("sum[0, 9):" + list.sum(0, 9) + " min[0, 9):" + list.min(0, 9)
+                + " max[0, 9):" + list.max(0, 9));
+
+        // 滑动窗口：每次修改一个点后查询窗口的和与最值
+        int n = 200000;
+        int window = 5000;
+        ArrayList<Long> raw = new ArrayList<>(n);
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < n; i++) {
+            raw.add((long) random.nextInt(1000000));
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            AggregateList aggregate = new AggregateList(raw);
+            long check = 0;
+            for (int i = 0; i + window <= n; i += 10) {
+                aggregate.set(i, i);
+                check += aggregate.sum(i, i + window) + aggregate.min(i, i + window) + aggregate.max(i, i + window);
+            }
+            long aggregateTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long loopCheck = 0;
+            for (int i = 0; i + window <= n; i += 10) {
+                long sum = 0;
+                long min = Long.MAX_VALUE;
+                long max = Long.MIN_VALUE;
+                for (int j = i; j < i + window; j++) {
+                    long value = j == i ? i : raw.get(j);
+                    sum += value;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                loopCheck += sum + min + max;
+            }
+            long loopTime = System.nanoTime() - start;
+            System.out.println("round " + round + " AggregateList:" + aggregateTime / 1000000 + "ms"
+                    + " get loop:" + loopTime / 1000000 + "ms same:" + (check == loopCheck));
+        }
+    }
+}
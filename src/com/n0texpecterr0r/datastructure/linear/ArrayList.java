@@ -1,5 +1,7 @@
 package com.n0texpecterr0r.datastructure.linear;
 
+import com.n0texpecterr0r.datastructure.stats.StructureStats;
+
 /**
  * 基于数组实现的ArrayList
  */
@@ -55,11 +57,11 @@ public class ArrayList<T> {
     }
 
     public boolean contains(T data) {
-        return indexOf(data) > 0;
+        return indexOf(data) >= 0;
     }
 
     public int indexOf(T data) {
-        for (int i = 0; i < datas.length; i++) {
+        for (int i = 0; i < length; i++) {
             if (datas[i] == data) {
                 return i;
             }
@@ -71,6 +73,15 @@ public class ArrayList<T> {
         return length;
     }
 
+    /**
+     * 内存占用与空余容量，O(1)
+     */
+    public StructureStats stats() {
+        long bytes = StructureStats.objectBytes(StructureStats.REFERENCE + 4 + 4)
+                + StructureStats.referenceArrayBytes(datas.length);
+        return new StructureStats(bytes, datas.length - length, length, 0, true, 0);
+    }
+
     public T[] toArray() {
         return (T[]) datas;
     }
@@ -111,5 +122,7 @@ public class ArrayList<T> {
         for (int i = 0; i < list.size(); i++) {
             System.out.print(list.get(i) + " ");
         }
+        System.out.println();
+        System.out.println(list.stats());
     }
 }
@@ -0,0 +1,158 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+import java.util.Comparator;
+
+/**
+ * 基于数组实现的 d 叉堆（最小堆）
+ *
+ * 下标为 i 的节点的子节点为 d*i+1 ~ d*i+d，父节点为 (i-1)/d。
+ * d 越大树越矮，上浮（add）越快，而下沉（poll）每层要在 d 个子节点中找最小值；
+ * d 为 4 时 4 个子节点通常位于同一条缓存行中，综合表现一般优于二叉堆
+ */
+public class DaryHeap<T> {
+    public static final int DEFAULT_ARITY = 4;
+    public static final int INIT_CAPACITY = 16;
+
+    private final int d;
+    // 为 null 时使用元素的 Comparable
+    private final Comparator<? super T> comparator;
+    private Object[] datas;
+    private int length;
+
+    public DaryHeap() {
+        this(DEFAULT_ARITY, null);
+    }
+
+    public DaryHeap(Comparator<? super T> comparator) {
+        this(DEFAULT_ARITY, comparator);
+    }
+
+    public DaryHeap(int d, Comparator<? super T> comparator) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d: " + d);
+        }
+        this.d = d;
+        this.comparator = comparator;
+        this.datas = new Object[INIT_CAPACITY];
+    }
+
+    public void add(T data) {
+        if (length == datas.length) {
+            resize();
+        }
+        siftUp(length++, data);
+    }
+
+    /**
+     * 返回最小的元素，堆为空时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return length == 0 ? null : (T) datas[0];
+    }
+
+    /**
+     * 删除并返回最小的元素，堆为空时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (length == 0) {
+            return null;
+        }
+        T top = (T) datas[0];
+        T last = (T) datas[--length];
+        datas[length] = null;
+        if (length > 0) {
+            siftDown(0, last);
+        }
+        return top;
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * 将 data 放在 index 处并向上调整，父节点比它大时父节点下移
+     */
+    @SuppressWarnings("unchecked")
+    private void siftUp(int index, T data) {
+        while (index > 0) {
+            int parent = (index - 1) / d;
+            T parentData = (T) datas[parent];
+            if (compare(data, parentData) >= 0) {
+                break;
+            }
+            datas[index] = parentData;
+            index = parent;
+        }
+        datas[index] = data;
+    }
+
+    /**
+     * 将 data 放在 index 处并向下调整，最小的子节点比它小时该子节点上移
+     */
+    @SuppressWarnings("unchecked")
+    private void siftDown(int index, T data) {
+        while (true) {
+            int first = d * index + 1;
+            if (first >= length) {
+                break;
+            }
+            int end = Math.min(first + d, length);
+            int min = first;
+            for (int i = first + 1; i < end; i++) {
+                if (compare((T) datas[i], (T) datas[min]) < 0) {
+                    min = i;
+                }
+            }
+            if (compare((T) datas[min], data) >= 0) {
+                break;
+            }
+            datas[index] = datas[min];
+            index = min;
+        }
+        datas[index] = data;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(T a, T b) {
+        if (comparator != null) {
+            return comparator.compare(a, b);
+        }
+        return ((Comparable<? super T>) a).compareTo(b);
+    }
+
+    private void resize() {
+        if (datas.length >= Integer.MAX_VALUE >> 1) {
+            throw new OutOfMemoryError("array too large");
+        }
+        Object[] old = datas;
+        datas = new Object[old.length << 1];
+        System.arraycopy(old, 0, datas, 0, length);
+    }
+
+    public static void main(String[] args) {
+        DaryHeap<Integer> heap = new DaryHeap<>();
+        int[] values = {42, 7, 19, 3, 88, 7, 25, 1, 64};
+        for (int value : values) {
+            heap.add(value);
+        }
+        System.out.println("size:" + heap.size() + " peek:" + heap.peek());
+        while (!heap.isEmpty()) {
+            System.out.print(heap.poll() + " ");
+        }
+        System.out.println();
+
+        DaryHeap<String> byLength = new DaryHeap<>(2, Comparator.comparingInt(String::length));
+        byLength.add("banana");
+        byLength.add("fig");
+        byLength.add("cherry");
+        byLength.add("kiwi");
+        System.out.println("shortest:" + byLength.poll() + " then:" + byLength.poll());
+    }
+}
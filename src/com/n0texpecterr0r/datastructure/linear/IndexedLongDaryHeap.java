@@ -0,0 +1,323 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+import com.n0texpecterr0r.datastructure.tree.LongRBMap;
+
+/**
+ * 优先级为 long 的索引 d 叉堆（最小堆），支持 O(log n) 的 decreaseKey 与按句柄删除
+ *
+ * add 返回一个 int 句柄，之后可以通过句柄修改优先级或删除元素。
+ * 堆本身只保存优先级与句柄两个平行的 int/long 数组，下沉时比较的都是连续的 long，
+ * 另有一个 positions 数组记录每个句柄当前在堆中的位置，元素移动时同步更新。
+ * 元素被删除后句柄会被回收，之后的 add 可能返回相同的句柄
+ */
+public class IndexedLongDaryHeap<T> {
+    public static final int DEFAULT_ARITY = 4;
+    public static final int INIT_CAPACITY = 16;
+
+    private final int d;
+
+    // 以堆中位置为下标
+    private long[] priorities;
+    private int[] handles;
+    private int length;
+
+    // 以句柄为下标，不在堆中的句柄位置为 -1，并通过 nextFree 串成空闲链表
+    private int[] positions;
+    private int[] nextFree;
+    private Object[] items;
+    private int freeHead = -1;
+    private int handleCount;
+
+    public IndexedLongDaryHeap() {
+        this(DEFAULT_ARITY);
+    }
+
+    public IndexedLongDaryHeap(int d) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d: " + d);
+        }
+        this.d = d;
+        this.priorities = new long[INIT_CAPACITY];
+        this.handles = new int[INIT_CAPACITY];
+        this.positions = new int[INIT_CAPACITY];
+        this.nextFree = new int[INIT_CAPACITY];
+        this.items = new Object[INIT_CAPACITY];
+    }
+
+    /**
+     * 加入元素，返回它的句柄
+     */
+    public int add(T item, long priority) {
+        int handle;
+        if (freeHead >= 0) {
+            handle = freeHead;
+            freeHead = nextFree[handle];
+        } else {
+            if (handleCount == positions.length) {
+                resize();
+            }
+            handle = handleCount++;
+        }
+        items[handle] = item;
+        siftUp(length++, handle, priority);
+        return handle;
+    }
+
+    /**
+     * 最小优先级元素的句柄，堆为空时抛出 IllegalStateException
+     */
+    public int peekHandle() {
+        checkNotEmpty();
+        return handles[0];
+    }
+
+    public long peekPriority() {
+        checkNotEmpty();
+        return priorities[0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        return length == 0 ? null : (T) items[handles[0]];
+    }
+
+    /**
+     * 删除并返回最小优先级的元素，堆为空时返回 null
+     */
+    public T poll() {
+        return length == 0 ? null : remove(handles[0]);
+    }
+
+    /**
+     * 降低句柄对应元素的优先级，priority 大于当前优先级时抛出 IllegalArgumentException
+     */
+    public void decreaseKey(int handle, long priority) {
+        checkHandle(handle);
+        int index = positions[handle];
+        if (priority > priorities[index]) {
+            throw new IllegalArgumentException("priority: " + priority + " current: " + priorities[index]);
+        }
+        siftUp(index, handle, priority);
+    }
+
+    /**
+     * 修改句柄对应元素的优先级，可以升高也可以降低
+     */
+    public void update(int handle, long priority) {
+        checkHandle(handle);
+        int index = positions[handle];
+        if (priority < priorities[index]) {
+            siftUp(index, handle, priority);
+        } else {
+            siftDown(index, handle, priority);
+        }
+    }
+
+    /**
+     * 删除句柄对应的元素并返回它，删除后句柄失效
+     * 用堆中最后一个元素填补空位，它可能需要上浮也可能需要下沉
+     */
+    @SuppressWarnings("unchecked")
+    public T remove(int handle) {
+        checkHandle(handle);
+        int index = positions[handle];
+        T item = (T) items[handle];
+        items[handle] = null;
+        positions[handle] = -1;
+        nextFree[handle] = freeHead;
+        freeHead = handle;
+
+        length--;
+        if (index < length) {
+            int lastHandle = handles[length];
+            long lastPriority = priorities[length];
+            if (index > 0 && lastPriority < priorities[(index - 1) / d]) {
+                siftUp(index, lastHandle, lastPriority);
+            } else {
+                siftDown(index, lastHandle, lastPriority);
+            }
+        }
+        return item;
+    }
+
+    public boolean contains(int handle) {
+        return handle >= 0 && handle < handleCount && positions[handle] >= 0;
+    }
+
+    public long priorityOf(int handle) {
+        checkHandle(handle);
+        return priorities[positions[handle]];
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    private void siftUp(int index, int handle, long priority) {
+        while (index > 0) {
+            int parent = (index - 1) / d;
+            if (priority >= priorities[parent]) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        place(index, handle, priority);
+    }
+
+    private void siftDown(int index, int handle, long priority) {
+        while (true) {
+            int first = d * index + 1;
+            if (first >= length) {
+                break;
+            }
+            int end = Math.min(first + d, length);
+            int min = first;
+            long minPriority = priorities[first];
+            for (int i = first + 1; i < end; i++) {
+                if (priorities[i] < minPriority) {
+                    min = i;
+                    minPriority = priorities[i];
+                }
+            }
+            if (minPriority >= priority) {
+                break;
+            }
+            move(min, index);
+            index = min;
+        }
+        place(index, handle, priority);
+    }
+
+    /**
+     * 将 from 处的元素移到 to 处
+     */
+    private void move(int from, int to) {
+        priorities[to] = priorities[from];
+        handles[to] = handles[from];
+        positions[handles[to]] = to;
+    }
+
+    private void place(int index, int handle, long priority) {
+        priorities[index] = priority;
+        handles[index] = handle;
+        positions[handle] = index;
+    }
+
+    private void checkHandle(int handle) {
+        if (!contains(handle)) {
+            throw new IllegalArgumentException("handle: " + handle);
+        }
+    }
+
+    private void checkNotEmpty() {
+        if (length == 0) {
+            throw new IllegalStateException("heap is empty");
+        }
+    }
+
+    /**
+     * 堆中元素数不会超过句柄数，两组数组一起扩容
+     */
+    private void resize() {
+        if (positions.length >= Integer.MAX_VALUE >> 1) {
+            throw new OutOfMemoryError("array too large");
+        }
+        int capacity = positions.length << 1;
+        long[] newPriorities = new long[capacity];
+        System.arraycopy(priorities, 0, newPriorities, 0, length);
+        priorities = newPriorities;
+        int[] newHandles = new int[capacity];
+        System.arraycopy(handles, 0, newHandles, 0, length);
+        handles = newHandles;
+        int[] newPositions = new int[capacity];
+        System.arraycopy(positions, 0, newPositions, 0, handleCount);
+        positions = newPositions;
+        int[] newNextFree = new int[capacity];
+        System.arraycopy(nextFree, 0, newNextFree, 0, handleCount);
+        nextFree = newNextFree;
+        Object[] newItems = new Object[capacity];
+        System.arraycopy(items, 0, newItems, 0, handleCount);
+        items = newItems;
+    }
+
+    public static void main(String[] args) {
+        IndexedLongDaryHeap<String> heap = new IndexedLongDaryHeap<>();
+        int a = heap.add("a", 50);
+        int b = heap.add("b", 30);
+        int c = heap.add("c", 40);
+        heap.add("d", 10);
+        heap.decreaseKey(a, 5);
+        heap.remove(b);
+        heap.update(c, 100);
+        System.out.println("size:" + heap.size() + " peek:" + heap.peek() + " priority:" + heap.peekPriority());
+        while (!heap.isEmpty()) {
+            System.out.print(heap.poll() + " ");
+        }
+        System.out.println();
+
+        // 模拟定时器：不断加入定时任务并取出最早到期的任务，部分任务在到期前被提前
+        int n = 1000000;
+        long[] deadlines = new long[n];
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < n; i++) {
+            // 低 20 位放序号，保证 LongRBMap 中的 key 不重复
+            deadlines[i] = ((long) random.nextInt(1 << 30) << 20) | i;
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            IndexedLongDaryHeap<Integer> timers = new IndexedLongDaryHeap<>();
+            int[] handles = new int[n];
+            long check = 0;
+            for (int i = 0; i < n; i++) {
+                handles[i] = timers.add(i, deadlines[i]);
+                if (i % 4 == 3 && timers.contains(handles[i - 1])) {
+                    timers.decreaseKey(handles[i - 1], timers.priorityOf(handles[i - 1]) >> 1);
+                }
+                if (i % 2 == 1) {
+                    check += timers.peekPriority();
+                    timers.poll();
+                }
+            }
+            while (!timers.isEmpty()) {
+                check += timers.peekPriority();
+                timers.poll();
+            }
+            long heapTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            LongRBMap<Integer> tree = new LongRBMap<>();
+            long[] current = new long[n];
+            long treeCheck = 0;
+            for (int i = 0; i < n; i++) {
+                tree.put(deadlines[i], i);
+                current[i] = deadlines[i];
+                if (i % 4 == 3 && tree.containsKey(current[i - 1])) {
+                    Integer item = tree.get(current[i - 1]);
+                    tree.remove(current[i - 1]);
+                    current[i - 1] = current[i - 1] >> 1;
+                    tree.put(current[i - 1], item);
+                }
+                if (i % 2 == 1) {
+                    long first = tree.firstKey();
+                    treeCheck += first;
+                    tree.remove(first);
+                }
+            }
+            while (tree.size() > 0) {
+                long first = tree.firstKey();
+                treeCheck += first;
+                tree.remove(first);
+            }
+            long treeTime = System.nanoTime() - start;
+
+            System.out.println("round " + round + " IndexedLongDaryHeap:" + heapTime / 1000000 + "ms"
+                    + " LongRBMap:" + treeTime / 1000000 + "ms"
+                    + " same order:" + (check == treeCheck));
+        }
+    }
+}
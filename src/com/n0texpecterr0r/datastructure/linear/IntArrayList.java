@@ -0,0 +1,210 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+/**
+ * 元素为 int 的 ArrayList，直接保存在 int 数组中
+ *
+ * 除了 ArrayList 的基本操作外提供 indexOf、count、min、max、sum 等扫描操作。
+ * 扫描由 IntKernels 完成：类路径上有 VectorIntKernels 并且 JVM 加载了 jdk.incubator.vector 模块
+ * （JDK 16 以上，启动参数 --add-modules jdk.incubator.vector）时使用 Vector API 的实现，
+ * 否则使用 ScalarIntKernels 中展开的纯 Java 循环。kernels() 返回实际使用的实现
+ */
+public class IntArrayList {
+    public static final int INIT_CAPACITY = 10;
+
+    private static final IntKernels KERNELS = loadKernels();
+
+    private int[] datas;
+    private int length;
+
+    public IntArrayList() {
+        this.datas = new int[INIT_CAPACITY];
+    }
+
+    public IntArrayList(int capacity) {
+        this.datas = new int[capacity];
+    }
+
+    public void add(int data) {
+        if (length == datas.length) {
+            resize();
+        }
+        datas[length++] = data;
+    }
+
+    public int get(int index) {
+        checkBounds(index);
+        return datas[index];
+    }
+
+    public void set(int index, int data) {
+        checkBounds(index);
+        datas[index] = data;
+    }
+
+    /**
+     * 删除下标为 index 的元素
+     */
+    public void removeAt(int index) {
+        checkBounds(index);
+        System.arraycopy(datas, index + 1, datas, index, length - index - 1);
+        length--;
+    }
+
+    public boolean contains(int data) {
+        return indexOf(data) >= 0;
+    }
+
+    public int indexOf(int data) {
+        return KERNELS.indexOf(datas, length, data);
+    }
+
+    /**
+     * data 出现的次数
+     */
+    public int count(int data) {
+        return KERNELS.count(datas, length, data);
+    }
+
+    public int min() {
+        checkNotEmpty();
+        return KERNELS.min(datas, length);
+    }
+
+    public int max() {
+        checkNotEmpty();
+        return KERNELS.max(datas, length);
+    }
+
+    /**
+     * 所有元素之和，使用 long 累加不会溢出
+     */
+    public long sum() {
+        return KERNELS.sum(datas, length);
+    }
+
+    public int size() {
+        return length;
+    }
+
+    public int[] toArray() {
+        int[] array = new int[length];
+        System.arraycopy(datas, 0, array, 0, length);
+        return array;
+    }
+
+    private void checkBounds(int index) {
+        if (index >= length || index < 0) {
+            throw new IndexOutOfBoundsException("index: " + index + " length: " + length);
+        }
+    }
+
+    private void checkNotEmpty() {
+        if (length == 0) {
+            throw new IllegalStateException("list is empty");
+        }
+    }
+
+    /**
+     * VectorIntKernels 只能用 JDK 16 以上编译，并且依赖孵化模块，
+     * 因此通过反射加载，类不存在、版本不符或者模块未加载时退回纯 Java 实现
+     */
+    private static IntKernels loadKernels() {
+        try {
+            Class<?> clazz = Class.forName("com.n0texpecterr0r.datastructure.linear.VectorIntKernels");
+            return (IntKernels) clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return ScalarIntKernels.INSTANCE;
+        }
+    }
+
+    /**
+     * 扫描操作实际使用的实现的类名
+     */
+    public static String kernels() {
+        return KERNELS.getClass().getSimpleName();
+    }
+
+    private void resize() {
+        if (datas.length >= Integer.MAX_VALUE >> 1) {
+            throw new OutOfMemoryError("array too large");
+        }
+        int[] old = datas;
+        datas = new int[Math.max(INIT_CAPACITY, old.length << 1)];
+        System.arraycopy(old, 0, datas, 0, length);
+    }
+
+    public static void main(String[] args) {
+        IntArrayList list = new IntArrayList();
+        for (int i = 0; i < 100; i++) {
+            list.add(i % 7);
+        }
+        list.add(-3);
+        System.out.println("index of 5:" + list.indexOf(5) + " index of -3:" + list.indexOf(-3)
+                + " contains 9:" + list.contains(9) + " count 0:" + list.count(0)
+                + " min:" + list.min() + " max:" + list.max() + " sum:" + list.sum()
+                + " kernels:" + kernels());
+
+        int n = 1 << 20;
+        IntArrayList numbers = new IntArrayList(n);
+        ArrayList<Integer> boxed = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            numbers.add(i);
+            boxed.add(i);
+        }
+        Integer last = boxed.get(n - 1);
+        int[] raw = numbers.toArray();
+        for (int round = 0; round < 5; round++) {
+            int repeat = 200;
+            long start = System.nanoTime();
+            long check = 0;
+            for (int r = 0; r < repeat; r++) {
+                check += numbers.indexOf(n - 1);
+            }
+            long indexOfTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < repeat; r++) {
+                check += ScalarIntKernels.INSTANCE.indexOf(raw, n, n - 1);
+            }
+            long scalarTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < repeat; r++) {
+                // 逐个比较的朴素循环
+                for (int i = 0; i < raw.length; i++) {
+                    if (raw[i] == n - 1) {
+                        check += i;
+                        break;
+                    }
+                }
+            }
+            long naiveTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < repeat; r++) {
+                check += boxed.indexOf(last);
+            }
+            long boxedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < repeat; r++) {
+                check += numbers.sum() + numbers.min() + numbers.max() + numbers.count(3);
+            }
+            long reduceTime = System.nanoTime() - start;
+
+            ScalarIntKernels scalar = ScalarIntKernels.INSTANCE;
+            start = System.nanoTime();
+            for (int r = 0; r < repeat; r++) {
+                check += scalar.sum(raw, n) + scalar.min(raw, n) + scalar.max(raw, n) + scalar.count(raw, n, 3);
+            }
+            long scalarReduceTime = System.nanoTime() - start;
+
+            System.out.println("round " + round + " indexOf:" + indexOfTime / 1000000 + "ms"
+                    + " scalar kernels:" + scalarTime / 1000000 + "ms"
+                    + " naive loop:" + naiveTime / 1000000 + "ms"
+                    + " ArrayList<Integer>:" + boxedTime / 1000000 + "ms"
+                    + " sum+min+max+count:" + reduceTime / 1000000 + "ms"
+                    + " scalar kernels:" + scalarReduceTime / 1000000 + "ms check:" + check);
+        }
+    }
+}
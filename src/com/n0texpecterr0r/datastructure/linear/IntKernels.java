@@ -0,0 +1,26 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+/**
+ * IntArrayList 的扫描操作，只处理 datas 的前 length 个元素
+ *
+ * 默认实现为 ScalarIntKernels；运行在 JDK 16 以上并且加载了 jdk.incubator.vector 模块时，
+ * IntArrayList 会改用 VectorIntKernels（源码位于 src-vector 目录，需要单独编译）
+ */
+interface IntKernels {
+
+    int indexOf(int[] datas, int length, int data);
+
+    int count(int[] datas, int length, int data);
+
+    /**
+     * length 为 0 时返回 Integer.MAX_VALUE
+     */
+    int min(int[] datas, int length);
+
+    /**
+     * length 为 0 时返回 Integer.MIN_VALUE
+     */
+    int max(int[] datas, int length);
+
+    long sum(int[] datas, int length);
+}
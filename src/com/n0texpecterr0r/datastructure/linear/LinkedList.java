@@ -1,5 +1,7 @@
 package com.n0texpecterr0r.datastructure.linear;
 
+import com.n0texpecterr0r.datastructure.stats.StructureStats;
+
 /**
  * 基于双向循环链表实现的LinkedList
  */
@@ -110,7 +112,7 @@ public class LinkedList<T> {
     }
 
     public boolean contains(T data) {
-        return indexOf(data) > 0;
+        return indexOf(data) >= 0;
     }
 
     public int indexOf(T data) {
@@ -130,6 +132,15 @@ public class LinkedList<T> {
         return length;
     }
 
+    /**
+     * 内存占用，每个元素一个含三个引用的 Entry，O(1)
+     */
+    public StructureStats stats() {
+        long bytes = StructureStats.objectBytes(StructureStats.REFERENCE + 4)
+                + length * StructureStats.objectBytes(3 * StructureStats.REFERENCE);
+        return new StructureStats(bytes, 0, length, 0, true, 0);
+    }
+
     private void checkBounds(int index) {
         if (index > length || index < 0) {
             throw new IndexOutOfBoundsException("index: " + index + " length: " + length);
@@ -150,5 +161,7 @@ public class LinkedList<T> {
         for (int i = 0; i < list.size(); i++) {
             System.out.print(list.get(i) + " ");
         }
+        System.out.println();
+        System.out.println(list.stats());
     }
 }
@@ -0,0 +1,107 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+/**
+ * 纯 Java 的扫描实现，任何 JDK 上都可以使用
+ *
+ * 循环按块展开，每块内使用多个互不依赖的累加器并且不含分支，
+ * 各个累加器之间没有数据依赖，CPU 可以并行执行它们的运算
+ */
+final class ScalarIntKernels implements IntKernels {
+    static final ScalarIntKernels INSTANCE = new ScalarIntKernels();
+
+    // indexOf 每次处理的元素个数
+    private static final int BLOCK = 16;
+
+    private ScalarIntKernels() {
+    }
+
+    /**
+     * 先用无分支的方式判断一整块中是否存在 data，只有存在时才在块内逐个查找
+     */
+    @Override
+    public int indexOf(int[] datas, int length, int data) {
+        int i = 0;
+        for (int bound = length - BLOCK; i <= bound; i += BLOCK) {
+            int hit = 0;
+            for (int j = 0; j < BLOCK; j++) {
+                hit |= datas[i + j] == data ? 1 : 0;
+            }
+            if (hit != 0) {
+                break;
+            }
+        }
+        for (; i < length; i++) {
+            if (datas[i] == data) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int count(int[] datas, int length, int data) {
+        int c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        for (int bound = length - 4; i <= bound; i += 4) {
+            c0 += datas[i] == data ? 1 : 0;
+            c1 += datas[i + 1] == data ? 1 : 0;
+            c2 += datas[i + 2] == data ? 1 : 0;
+            c3 += datas[i + 3] == data ? 1 : 0;
+        }
+        for (; i < length; i++) {
+            c0 += datas[i] == data ? 1 : 0;
+        }
+        return c0 + c1 + c2 + c3;
+    }
+
+    @Override
+    public int min(int[] datas, int length) {
+        int m0 = Integer.MAX_VALUE, m1 = Integer.MAX_VALUE, m2 = Integer.MAX_VALUE, m3 = Integer.MAX_VALUE;
+        int i = 0;
+        for (int bound = length - 4; i <= bound; i += 4) {
+            m0 = Math.min(m0, datas[i]);
+            m1 = Math.min(m1, datas[i + 1]);
+            m2 = Math.min(m2, datas[i + 2]);
+            m3 = Math.min(m3, datas[i + 3]);
+        }
+        for (; i < length; i++) {
+            m0 = Math.min(m0, datas[i]);
+        }
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    @Override
+    public int max(int[] datas, int length) {
+        int m0 = Integer.MIN_VALUE, m1 = Integer.MIN_VALUE, m2 = Integer.MIN_VALUE, m3 = Integer.MIN_VALUE;
+        int i = 0;
+        for (int bound = length - 4; i <= bound; i += 4) {
+            m0 = Math.max(m0, datas[i]);
+            m1 = Math.max(m1, datas[i + 1]);
+            m2 = Math.max(m2, datas[i + 2]);
+            m3 = Math.max(m3, datas[i + 3]);
+        }
+        for (; i < length; i++) {
+            m0 = Math.max(m0, datas[i]);
+        }
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * 使用 long 累加不会溢出
+     */
+    @Override
+    public long sum(int[] datas, int length) {
+        long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (int bound = length - 4; i <= bound; i += 4) {
+            s0 += datas[i];
+            s1 += datas[i + 1];
+            s2 += datas[i + 2];
+            s3 += datas[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += datas[i];
+        }
+        return s0 + s1 + s2 + s3;
+    }
+}
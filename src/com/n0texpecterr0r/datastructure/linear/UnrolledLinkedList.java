@@ -0,0 +1,320 @@
+package com.n0texpecterr0r.datastructure.linear;
+
+import java.util.function.Consumer;
+
+/**
+ * 展开链表（Unrolled Linked List），每个节点保存一小段元素数组的双向链表
+ *
+ * 与 LinkedList 每个元素一个 Entry 相比，遍历时大部分访问都落在同一个节点的数组中，
+ * 基本是顺序访存；每个元素平均只需要一个数组槽位，节点本身的开销被 capacity 个元素分摊。
+ * 在中间插入或删除只需要移动一个节点内的元素：插入时节点已满则对半分裂；
+ * 删除后节点不足半满时，两者放得下就与后继节点合并，放不下就从后继节点借一部分元素使两者均分，
+ * 最后一个节点没有后继，放得下时并入前驱节点。因此除最后一个节点外每个节点都至少半满
+ */
+public class UnrolledLinkedList<T> {
+    public static final int DEFAULT_CHUNK_CAPACITY = 64;
+
+    private final int chunkCapacity;
+    private Chunk head;
+    private Chunk tail;
+    private int length;
+
+    private static class Chunk {
+        Object[] datas;
+        int count;
+        Chunk prev;
+        Chunk next;
+
+        Chunk(int capacity) {
+            this.datas = new Object[capacity];
+        }
+    }
+
+    public UnrolledLinkedList() {
+        this(DEFAULT_CHUNK_CAPACITY);
+    }
+
+    public UnrolledLinkedList(int chunkCapacity) {
+        if (chunkCapacity < 4) {
+            throw new IllegalArgumentException("chunkCapacity: " + chunkCapacity);
+        }
+        this.chunkCapacity = chunkCapacity;
+    }
+
+    public void add(T data) {
+        if (tail == null || tail.count == chunkCapacity) {
+            linkAfter(tail, new Chunk(chunkCapacity));
+        }
+        tail.datas[tail.count++] = data;
+        length++;
+    }
+
+    public void add(int index, T data) {
+        if (index > length || index < 0) {
+            throw new IndexOutOfBoundsException("index: " + index + " length: " + length);
+        }
+        if (index == length) {
+            add(data);
+            return;
+        }
+        Chunk chunk = head;
+        while (index >= chunk.count) {
+            index -= chunk.count;
+            chunk = chunk.next;
+        }
+        if (chunk.count == chunkCapacity) {
+            // 对半分裂，后一半移到新节点中
+            Chunk half = new Chunk(chunkCapacity);
+            int move = chunk.count / 2;
+            System.arraycopy(chunk.datas, chunk.count - move, half.datas, 0, move);
+            clear(chunk, chunk.count - move, chunk.count);
+            chunk.count -= move;
+            half.count = move;
+            linkAfter(chunk, half);
+            if (index > chunk.count) {
+                index -= chunk.count;
+                chunk = half;
+            }
+        }
+        System.arraycopy(chunk.datas, index, chunk.datas, index + 1, chunk.count - index);
+        chunk.datas[index] = data;
+        chunk.count++;
+        length++;
+    }
+
+    public void addAll(UnrolledLinkedList<T> list) {
+        list.forEach(this::add);
+    }
+
+    /**
+     * 删除第一个与 data 相同（==）的元素
+     */
+    public void remove(T data) {
+        for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.count; i++) {
+                if (chunk.datas[i] == data) {
+                    removeAt(chunk, i);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除下标为 index 的元素并返回它
+     */
+    @SuppressWarnings("unchecked")
+    public T removeAt(int index) {
+        checkBounds(index);
+        Chunk chunk = head;
+        while (index >= chunk.count) {
+            index -= chunk.count;
+            chunk = chunk.next;
+        }
+        T data = (T) chunk.datas[index];
+        removeAt(chunk, index);
+        return data;
+    }
+
+    private void removeAt(Chunk chunk, int index) {
+        System.arraycopy(chunk.datas, index + 1, chunk.datas, index, chunk.count - index - 1);
+        chunk.datas[--chunk.count] = null;
+        length--;
+        if (chunk.count == 0) {
+            unlink(chunk);
+        } else if (chunk.count < chunkCapacity / 2) {
+            Chunk next = chunk.next;
+            if (next == null) {
+                // 最后一个节点允许不足半满，放得下时并入前驱节点
+                if (chunk.prev != null && chunk.prev.count + chunk.count <= chunkCapacity) {
+                    merge(chunk.prev, chunk);
+                }
+            } else if (chunk.count + next.count <= chunkCapacity) {
+                merge(chunk, next);
+            } else {
+                // 合并放不下，说明后继节点超过半满，从它的头部借出一部分使两者元素数均分
+                int move = (next.count - chunk.count) / 2;
+                System.arraycopy(next.datas, 0, chunk.datas, chunk.count, move);
+                System.arraycopy(next.datas, move, next.datas, 0, next.count - move);
+                clear(next, next.count - move, next.count);
+                chunk.count += move;
+                next.count -= move;
+            }
+        }
+    }
+
+    /**
+     * 把 next 的元素全部移到 chunk 的末尾，并删除 next
+     */
+    private void merge(Chunk chunk, Chunk next) {
+        System.arraycopy(next.datas, 0, chunk.datas, chunk.count, next.count);
+        chunk.count += next.count;
+        unlink(next);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        checkBounds(index);
+        // 根据位置从尾端或头端进行查找
+        if (index < length / 2) {
+            Chunk chunk = head;
+            while (index >= chunk.count) {
+                index -= chunk.count;
+                chunk = chunk.next;
+            }
+            return (T) chunk.datas[index];
+        } else {
+            int fromEnd = length - index - 1;
+            Chunk chunk = tail;
+            while (fromEnd >= chunk.count) {
+                fromEnd -= chunk.count;
+                chunk = chunk.prev;
+            }
+            return (T) chunk.datas[chunk.count - fromEnd - 1];
+        }
+    }
+
+    public boolean contains(T data) {
+        return indexOf(data) >= 0;
+    }
+
+    public int indexOf(T data) {
+        int base = 0;
+        for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            Object[] datas = chunk.datas;
+            for (int i = 0; i < chunk.count; i++) {
+                if (datas[i] == data) {
+                    return base + i;
+                }
+            }
+            base += chunk.count;
+        }
+        return -1;
+    }
+
+    /**
+     * 按顺序遍历所有元素
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            for (int i = 0; i < chunk.count; i++) {
+                action.accept((T) chunk.datas[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return length;
+    }
+
+    private void linkAfter(Chunk prev, Chunk chunk) {
+        chunk.prev = prev;
+        if (prev == null) {
+            chunk.next = head;
+            head = chunk;
+        } else {
+            chunk.next = prev.next;
+            prev.next = chunk;
+        }
+        if (chunk.next == null) {
+            tail = chunk;
+        } else {
+            chunk.next.prev = chunk;
+        }
+    }
+
+    private void unlink(Chunk chunk) {
+        if (chunk.prev == null) {
+            head = chunk.next;
+        } else {
+            chunk.prev.next = chunk.next;
+        }
+        if (chunk.next == null) {
+            tail = chunk.prev;
+        } else {
+            chunk.next.prev = chunk.prev;
+        }
+        chunk.prev = null;
+        chunk.next = null;
+    }
+
+    private static void clear(Chunk chunk, int from, int to) {
+        for (int i = from; i < to; i++) {
+            chunk.datas[i] = null;
+        }
+    }
+
+    private void checkBounds(int index) {
+        if (index >= length || index < 0) {
+            throw new IndexOutOfBoundsException("index: " + index + " length: " + length);
+        }
+    }
+
+    public static void main(String[] args) {
+        UnrolledLinkedList<Integer> list = new UnrolledLinkedList<>(4);
+        for (int i = 0; i < 100; i++) {
+            list.add(i + 1);
+        }
+        System.out.println("index of 25: " + list.indexOf(25));
+        list.remove(15);
+        list.add(10, 260);
+        System.out.println("index of 25: " + list.indexOf(25));
+        System.out.println(list.contains(16));
+
+        for (int i = 0; i < list.size(); i++) {
+            System.out.print(list.get(i) + " ");
+        }
+        System.out.println();
+
+        int n = 200000;
+        Integer[] values = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int round = 0; round < 3; round++) {
+            UnrolledLinkedList<Integer> unrolled = new UnrolledLinkedList<>();
+            LinkedList<Integer> linked = new LinkedList<>();
+            for (int i = 0; i < n; i++) {
+                unrolled.add(values[i]);
+                linked.add(values[i]);
+            }
+
+            // 查找末尾元素需要完整遍历一遍
+            long start = System.nanoTime();
+            long check = 0;
+            for (int r = 0; r < 50; r++) {
+                check += unrolled.indexOf(values[n - 1 - r]);
+            }
+            long unrolledScan = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int r = 0; r < 50; r++) {
+                check -= linked.indexOf(values[n - 1 - r]);
+            }
+            long linkedScan = System.nanoTime() - start;
+
+            // 在中间附近插入与删除
+            java.util.Random random = new java.util.Random(round);
+            start = System.nanoTime();
+            for (int r = 0; r < 2000; r++) {
+                int index = n / 4 + random.nextInt(n / 2);
+                unrolled.add(index, values[r]);
+                unrolled.remove(values[index]);
+            }
+            long unrolledEdit = System.nanoTime() - start;
+            random = new java.util.Random(round);
+            start = System.nanoTime();
+            for (int r = 0; r < 2000; r++) {
+                int index = n / 4 + random.nextInt(n / 2);
+                linked.add(index, values[r]);
+                linked.remove(values[index]);
+            }
+            long linkedEdit = System.nanoTime() - start;
+
+            System.out.println("round " + round
+                    + " indexOf unrolled:" + unrolledScan / 1000000 + "ms linked:" + linkedScan / 1000000 + "ms"
+                    + " insert+remove unrolled:" + unrolledEdit / 1000000 + "ms linked:" + linkedEdit / 1000000 + "ms"
+                    + " check:" + check + " size:" + unrolled.size() + "/" + linked.size());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.n0texpecterr0r.datastructure.stats;
+
+/**
+ * 数据结构的内存占用与形状信息，由各个结构的 stats() 返回
+ *
+ * 内存按 64 位 JVM 开启压缩指针（堆小于 32GB 时的默认设置）估算：
+ * 对象头 12 字节，引用 4 字节，数组头 16 字节，对象按 8 字节对齐。
+ * 只统计结构自身的对象（节点、数组等），不包含 key 与 value 引用的对象
+ */
+public final class StructureStats {
+    public static final int OBJECT_HEADER = 12;
+    public static final int ARRAY_HEADER = 16;
+    public static final int REFERENCE = 4;
+
+    // 估算的内存占用（字节）
+    public final long estimatedBytes;
+    // 已分配但未使用的槽位数，没有预分配空间的结构为 0
+    public final int slack;
+    // 元素（节点）个数
+    public final int nodeCount;
+    // 树的高度，线性结构为 0；heightExact 为 false 时只是实际高度的上界
+    public final int height;
+    // height 是否为精确值：AVLMap 精确，RBMap 为黑高的两倍，BSTMap 为插入时出现过的最大深度
+    public final boolean heightExact;
+    // 红黑树的黑高，其他结构为 0
+    public final int blackHeight;
+
+    public StructureStats(long estimatedBytes, int slack, int nodeCount, int height, boolean heightExact,
+                          int blackHeight) {
+        this.estimatedBytes = estimatedBytes;
+        this.slack = slack;
+        this.nodeCount = nodeCount;
+        this.height = height;
+        this.heightExact = heightExact;
+        this.blackHeight = blackHeight;
+    }
+
+    /**
+     * 字段共占 fieldBytes 字节的对象的大小
+     */
+    public static long objectBytes(int fieldBytes) {
+        return align(OBJECT_HEADER + fieldBytes);
+    }
+
+    /**
+     * 长度为 length 的引用数组的大小
+     */
+    public static long referenceArrayBytes(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    @Override
+    public String toString() {
+        return "bytes:" + estimatedBytes
+                + " slack:" + slack
+                + " nodes:" + nodeCount
+                + " height:" + (heightExact ? "" : "<=") + height
+                + " blackHeight:" + blackHeight;
+    }
+}
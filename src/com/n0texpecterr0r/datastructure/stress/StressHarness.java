@@ -0,0 +1,184 @@
+package com.n0texpecterr0r.datastructure.stress;
+
+import com.n0texpecterr0r.datastructure.linear.ArrayList;
+import com.n0texpecterr0r.datastructure.tree.RBMap;
+import com.n0texpecterr0r.datastructure.tree.SplayMap;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+
+/**
+ * 固定到达速率的压测工具
+ *
+ * 一个调度线程按固定的间隔产生请求，第 i 个请求的预定开始时间为 start + i * interval，
+ * 请求交给执行线程处理，延迟从预定开始时间算起，而不是从真正开始执行的时间算起。
+ * 这样被测结构卡顿时，排队等待的请求也会如实地计入延迟，不会出现协调遗漏（coordinated omission）。
+ *
+ * 运行在 JDK 21 及以上时每个请求使用一个虚拟线程执行，可以轻松模拟上千个并发客户端；
+ * 更低版本的 JDK 使用 clients 个平台线程组成的线程池。
+ *
+ * 项目中的数据结构都不是线程安全的，默认所有操作都在同一把锁下串行执行，
+ * 测试线程安全的结构时可以通过 setSerialized(false) 关闭
+ */
+public class StressHarness {
+    private final int clients;
+    private final int ratePerSecond;
+    private final long durationMillis;
+    private final double readRatio;
+    private final int keySpace;
+    private boolean serialized = true;
+
+    /**
+     * @param clients        虚拟线程不可用时线程池的线程数
+     * @param ratePerSecond  每秒产生的请求数
+     * @param durationMillis 压测持续时间
+     * @param readRatio      读操作的比例，取值为 [0, 1]
+     * @param keySpace       读写操作的 key 在 [0, keySpace) 中均匀选取
+     */
+    public StressHarness(int clients, int ratePerSecond, long durationMillis, double readRatio, int keySpace) {
+        if (clients <= 0 || ratePerSecond <= 0 || durationMillis <= 0 || keySpace <= 0
+                || readRatio < 0 || readRatio > 1) {
+            throw new IllegalArgumentException("clients: " + clients + " rate: " + ratePerSecond
+                    + " duration: " + durationMillis + " readRatio: " + readRatio + " keySpace: " + keySpace);
+        }
+        this.clients = clients;
+        this.ratePerSecond = ratePerSecond;
+        this.durationMillis = durationMillis;
+        this.readRatio = readRatio;
+        this.keySpace = keySpace;
+    }
+
+    public void setSerialized(boolean serialized) {
+        this.serialized = serialized;
+    }
+
+    /**
+     * 压测结果
+     */
+    public static class Report {
+        public final LatencyHistogram reads;
+        public final LatencyHistogram writes;
+        public final LatencyHistogram all;
+        public final long elapsedNanos;
+        public final boolean virtualThreads;
+
+        private Report(LatencyHistogram reads, LatencyHistogram writes, long elapsedNanos, boolean virtualThreads) {
+            this.reads = reads;
+            this.writes = writes;
+            this.all = new LatencyHistogram();
+            this.all.add(reads);
+            this.all.add(writes);
+            this.elapsedNanos = elapsedNanos;
+            this.virtualThreads = virtualThreads;
+        }
+
+        /**
+         * 实际完成的吞吐量（每秒操作数）
+         */
+        public double throughput() {
+            return all.count() * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "ops:" + all.count()
+                    + " throughput:" + (long) throughput() + "/s"
+                    + (virtualThreads ? " (virtual threads)" : " (thread pool)")
+                    + "\n  read  " + describe(reads)
+                    + "\n  write " + describe(writes)
+                    + "\n  all   " + describe(all);
+        }
+
+        private static String describe(LatencyHistogram histogram) {
+            return "count:" + histogram.count()
+                    + " p50:" + micros(histogram.percentile(50))
+                    + " p99:" + micros(histogram.percentile(99))
+                    + " p99.9:" + micros(histogram.percentile(99.9))
+                    + " max:" + micros(histogram.max());
+        }
+
+        private static String micros(long nanos) {
+            return String.format("%.1fus", nanos / 1000.0);
+        }
+    }
+
+    /**
+     * 开始压测，read 与 write 接收一个随机的 key
+     */
+    public Report run(IntConsumer read, IntConsumer write) throws InterruptedException {
+        LatencyHistogram reads = new LatencyHistogram();
+        LatencyHistogram writes = new LatencyHistogram();
+        ReentrantLock lock = serialized ? new ReentrantLock() : null;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        ExecutorService executor = virtual != null ? virtual : Executors.newFixedThreadPool(clients);
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long total = durationMillis * ratePerSecond / 1000;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                boolean isRead = random.nextDouble() < readRatio;
+                int key = random.nextInt(keySpace);
+                if (lock != null) {
+                    lock.lock();
+                }
+                try {
+                    if (isRead) {
+                        read.accept(key);
+                    } else {
+                        write.accept(key);
+                    }
+                } finally {
+                    if (lock != null) {
+                        lock.unlock();
+                    }
+                }
+                // 从预定开始时间计算延迟
+                (isRead ? reads : writes).record(System.nanoTime() - intended);
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        return new Report(reads, writes, System.nanoTime() - start, virtual != null);
+    }
+
+    /**
+     * 通过反射获取 JDK 21 的虚拟线程执行器，不可用时返回 null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int keySpace = 100000;
+        StressHarness harness = new StressHarness(64, 50000, 3000, 0.9, keySpace);
+
+        RBMap<Integer, Integer> rb = new RBMap<>();
+        SplayMap<Integer, Integer> splay = new SplayMap<>();
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < keySpace; i++) {
+            rb.put(i, i);
+            splay.put(i, i);
+            list.add(i);
+        }
+
+        System.out.println("RBMap\n" + harness.run(rb::get, key -> rb.put(key, key)));
+        System.out.println("SplayMap\n" + harness.run(splay::get, key -> splay.put(key, key)));
+        System.out.println("ArrayList\n" + harness.run(list::get, key -> list.add(key)));
+    }
+}
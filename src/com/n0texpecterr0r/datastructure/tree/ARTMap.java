@@ -0,0 +1,650 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * 自适应基数树（Adaptive Radix Tree）实现的 Map，key 为 byte[] 或 String
+ *
+ * 基数树按 key 的字节逐层向下查找，查找代价只与 key 的长度有关，与树中元素的数量无关，
+ * 并且拥有相同前缀的 key 会共享同一条路径，天然支持前缀查询。
+ *
+ * 普通的基数树每个节点都有 256 个子节点指针，非常浪费空间。ART 根据子节点数量使用四种节点：
+ * 1. Node4：最多 4 个子节点，key 与子节点按字节顺序存放在两个小数组中
+ * 2. Node16：最多 16 个子节点，结构与 Node4 相同
+ * 3. Node48：最多 48 个子节点，用一个 256 长度的 byte 数组把字节映射到子节点数组的下标
+ * 4. Node256：直接用 256 长度的数组存放子节点
+ * 节点满了时增长为更大的节点，删除后子节点过少时收缩为更小的节点。
+ *
+ * 另外还有两个压缩手段：
+ * 1. 路径压缩：只有一个子节点的一串节点会被合并，节点的 prefix 保存这些被合并的字节
+ * 2. 懒展开：只有一个 key 的子树直接用叶子节点表示，叶子节点保存 key 剩余的字节
+ * 叶子节点只保存从它所在位置开始的剩余字节，公共前缀只会在内部节点中保存一次。
+ *
+ * 一个 key 可能是另一个 key 的前缀（如 "ab" 与 "abc"），这时较短的 key 作为内部节点的 terminal 保存
+ */
+public class ARTMap<V> {
+    private static final byte[] EMPTY = new byte[0];
+
+    // Leaf 或者 Node
+    private Object root;
+    private int size;
+
+    private static class Leaf<V> {
+        // key 从该叶子节点所在位置开始剩余的字节
+        byte[] suffix;
+        V value;
+
+        Leaf(byte[] suffix, V value) {
+            this.suffix = suffix;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 内部节点，子节点为 Leaf 或者 Node
+     */
+    private abstract static class Node {
+        // 路径压缩保存的字节
+        byte[] prefix = EMPTY;
+        // 恰好在 prefix 结束处结束的 key
+        Leaf<?> terminal;
+        int count;
+
+        abstract Object child(int b);
+
+        /**
+         * 替换已存在的子节点
+         */
+        abstract void setChild(int b, Object child);
+
+        /**
+         * 添加子节点，节点已满时返回增长后的新节点
+         */
+        abstract Node addChild(int b, Object child);
+
+        /**
+         * 删除子节点，子节点过少时返回收缩后的新节点
+         */
+        abstract Node removeChild(int b);
+
+        /**
+         * 按字节从小到大遍历子节点
+         */
+        abstract void forEachChild(ObjIntConsumer<Object> action);
+
+        /**
+         * 将 prefix、terminal 以及所有子节点复制到 target 中
+         */
+        Node copyTo(Node target) {
+            target.prefix = prefix;
+            target.terminal = terminal;
+            forEachChild((child, b) -> target.addChild(b, child));
+            return target;
+        }
+    }
+
+    /**
+     * Node4 与 Node16，子节点按字节顺序存放
+     */
+    private static class SortedNode extends Node {
+        final byte[] keys;
+        final Object[] children;
+
+        SortedNode(int capacity) {
+            keys = new byte[capacity];
+            children = new Object[capacity];
+        }
+
+        private int indexOf(int b) {
+            for (int i = 0; i < count; i++) {
+                if ((keys[i] & 0xFF) == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object child(int b) {
+            int index = indexOf(b);
+            return index < 0 ? null : children[index];
+        }
+
+        @Override
+        void setChild(int b, Object child) {
+            children[indexOf(b)] = child;
+        }
+
+        @Override
+        Node addChild(int b, Object child) {
+            if (count == keys.length) {
+                Node grown = keys.length == 4 ? new SortedNode(16) : new Node48();
+                return copyTo(grown).addChild(b, child);
+            }
+            int index = count;
+            while (index > 0 && (keys[index - 1] & 0xFF) > b) {
+                keys[index] = keys[index - 1];
+                children[index] = children[index - 1];
+                index--;
+            }
+            keys[index] = (byte) b;
+            children[index] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        Node removeChild(int b) {
+            int index = indexOf(b);
+            System.arraycopy(keys, index + 1, keys, index, count - index - 1);
+            System.arraycopy(children, index + 1, children, index, count - index - 1);
+            count--;
+            children[count] = null;
+            if (keys.length == 16 && count <= 3) {
+                return copyTo(new SortedNode(4));
+            }
+            return this;
+        }
+
+        @Override
+        void forEachChild(ObjIntConsumer<Object> action) {
+            for (int i = 0; i < count; i++) {
+                action.accept(children[i], keys[i] & 0xFF);
+            }
+        }
+    }
+
+    private static class Node48 extends Node {
+        // 字节对应的子节点下标 + 1，0 表示不存在
+        final byte[] index = new byte[256];
+        final Object[] children = new Object[48];
+
+        @Override
+        Object child(int b) {
+            int slot = index[b];
+            return slot == 0 ? null : children[slot - 1];
+        }
+
+        @Override
+        void setChild(int b, Object child) {
+            children[index[b] - 1] = child;
+        }
+
+        @Override
+        Node addChild(int b, Object child) {
+            if (count == 48) {
+                return copyTo(new Node256()).addChild(b, child);
+            }
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            index[b] = (byte) (slot + 1);
+            count++;
+            return this;
+        }
+
+        @Override
+        Node removeChild(int b) {
+            children[index[b] - 1] = null;
+            index[b] = 0;
+            count--;
+            if (count <= 12) {
+                return copyTo(new SortedNode(16));
+            }
+            return this;
+        }
+
+        @Override
+        void forEachChild(ObjIntConsumer<Object> action) {
+            for (int b = 0; b < 256; b++) {
+                if (index[b] != 0) {
+                    action.accept(children[index[b] - 1], b);
+                }
+            }
+        }
+    }
+
+    private static class Node256 extends Node {
+        final Object[] children = new Object[256];
+
+        @Override
+        Object child(int b) {
+            return children[b];
+        }
+
+        @Override
+        void setChild(int b, Object child) {
+            children[b] = child;
+        }
+
+        @Override
+        Node addChild(int b, Object child) {
+            children[b] = child;
+            count++;
+            return this;
+        }
+
+        @Override
+        Node removeChild(int b) {
+            children[b] = null;
+            count--;
+            if (count <= 36) {
+                return copyTo(new Node48());
+            }
+            return this;
+        }
+
+        @Override
+        void forEachChild(ObjIntConsumer<Object> action) {
+            for (int b = 0; b < 256; b++) {
+                if (children[b] != null) {
+                    action.accept(children[b], b);
+                }
+            }
+        }
+    }
+
+    public void put(String key, V value) {
+        put(key.getBytes(StandardCharsets.UTF_8), value);
+    }
+
+    public V get(String key) {
+        return get(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public void remove(String key) {
+        remove(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按 key 的字节顺序遍历所有以 prefix 开头的 key
+     */
+    public void prefixScan(String prefix, BiConsumer<String, V> action) {
+        prefixScan(prefix.getBytes(StandardCharsets.UTF_8),
+                (key, value) -> action.accept(new String(key, StandardCharsets.UTF_8), value));
+    }
+
+    public void put(byte[] key, V value) {
+        root = insert(root, key, 0, value);
+    }
+
+    /**
+     * 在 n 的子树中插入 key，depth 为 n 所在位置已经消耗的 key 字节数，返回替换 n 的节点
+     */
+    private Object insert(Object n, byte[] key, int depth, V value) {
+        if (n == null) {
+            size++;
+            return new Leaf<>(Arrays.copyOfRange(key, depth, key.length), value);
+        }
+        if (n instanceof Leaf) {
+            Leaf<V> leaf = asLeaf(n);
+            int common = commonLength(leaf.suffix, 0, key, depth);
+            if (common == leaf.suffix.length && depth + common == key.length) {
+                // key 相同，直接替换值
+                leaf.value = value;
+                return leaf;
+            }
+            // 展开为一个 Node4，prefix 为两个 key 的公共部分
+            SortedNode node = new SortedNode(4);
+            node.prefix = Arrays.copyOf(leaf.suffix, common);
+            byte[] old = leaf.suffix;
+            leaf.suffix = Arrays.copyOfRange(old, Math.min(common + 1, old.length), old.length);
+            attach(node, leaf, old.length == common ? -1 : old[common] & 0xFF);
+            Leaf<V> inserted = new Leaf<>(Arrays.copyOfRange(key, Math.min(depth + common + 1, key.length), key.length), value);
+            attach(node, inserted, depth + common == key.length ? -1 : key[depth + common] & 0xFF);
+            size++;
+            return node;
+        }
+
+        Node node = (Node) n;
+        int common = commonLength(node.prefix, 0, key, depth);
+        if (common < node.prefix.length) {
+            // key 与 prefix 在中间分叉，拆分 prefix
+            SortedNode parent = new SortedNode(4);
+            parent.prefix = Arrays.copyOf(node.prefix, common);
+            int b = node.prefix[common] & 0xFF;
+            node.prefix = Arrays.copyOfRange(node.prefix, common + 1, node.prefix.length);
+            parent.addChild(b, node);
+            Leaf<V> inserted = new Leaf<>(Arrays.copyOfRange(key, Math.min(depth + common + 1, key.length), key.length), value);
+            attach(parent, inserted, depth + common == key.length ? -1 : key[depth + common] & 0xFF);
+            size++;
+            return parent;
+        }
+        depth += node.prefix.length;
+        if (depth == key.length) {
+            if (node.terminal == null) {
+                node.terminal = new Leaf<>(EMPTY, value);
+                size++;
+            } else {
+                asLeaf(node.terminal).value = value;
+            }
+            return node;
+        }
+        int b = key[depth] & 0xFF;
+        Object child = node.child(b);
+        if (child == null) {
+            size++;
+            return node.addChild(b, new Leaf<>(Arrays.copyOfRange(key, depth + 1, key.length), value));
+        }
+        Object newChild = insert(child, key, depth + 1, value);
+        if (newChild != child) {
+            node.setChild(b, newChild);
+        }
+        return node;
+    }
+
+    /**
+     * 将叶子节点挂到新建的 Node4 上，b 为 -1 时说明 key 恰好在 prefix 处结束
+     */
+    private void attach(SortedNode node, Leaf<V> leaf, int b) {
+        if (b < 0) {
+            node.terminal = leaf;
+        } else {
+            node.addChild(b, leaf);
+        }
+    }
+
+    public V get(byte[] key) {
+        Object n = root;
+        int depth = 0;
+        while (n != null) {
+            if (n instanceof Leaf) {
+                Leaf<V> leaf = asLeaf(n);
+                int common = commonLength(leaf.suffix, 0, key, depth);
+                return common == leaf.suffix.length && depth + common == key.length ? leaf.value : null;
+            }
+            Node node = (Node) n;
+            if (commonLength(node.prefix, 0, key, depth) < node.prefix.length) {
+                return null;
+            }
+            depth += node.prefix.length;
+            if (depth == key.length) {
+                return node.terminal == null ? null : asLeaf(node.terminal).value;
+            }
+            n = node.child(key[depth] & 0xFF);
+            depth++;
+        }
+        return null;
+    }
+
+    public void remove(byte[] key) {
+        root = delete(root, key, 0);
+    }
+
+    /**
+     * 在 n 的子树中删除 key，返回替换 n 的节点
+     */
+    private Object delete(Object n, byte[] key, int depth) {
+        if (n == null) {
+            return null;
+        }
+        if (n instanceof Leaf) {
+            Leaf<V> leaf = asLeaf(n);
+            int common = commonLength(leaf.suffix, 0, key, depth);
+            if (common == leaf.suffix.length && depth + common == key.length) {
+                size--;
+                return null;
+            }
+            return leaf;
+        }
+        Node node = (Node) n;
+        if (commonLength(node.prefix, 0, key, depth) < node.prefix.length) {
+            return node;
+        }
+        depth += node.prefix.length;
+        if (depth == key.length) {
+            if (node.terminal == null) {
+                return node;
+            }
+            node.terminal = null;
+            size--;
+        } else {
+            int b = key[depth] & 0xFF;
+            Object child = node.child(b);
+            if (child == null) {
+                return node;
+            }
+            Object newChild = delete(child, key, depth + 1);
+            if (newChild == child) {
+                return node;
+            }
+            if (newChild == null) {
+                node = node.removeChild(b);
+            } else {
+                node.setChild(b, newChild);
+            }
+        }
+        return collapse(node);
+    }
+
+    /**
+     * 删除后节点只剩一个 key 或一个子节点时，与其合并以维持路径压缩
+     */
+    private Object collapse(Node node) {
+        if (node.count == 0) {
+            Leaf<?> terminal = node.terminal;
+            if (terminal != null) {
+                terminal.suffix = node.prefix;
+            }
+            return terminal;
+        }
+        if (node.count == 1 && node.terminal == null) {
+            Object[] only = new Object[1];
+            int[] onlyByte = new int[1];
+            node.forEachChild((child, b) -> {
+                only[0] = child;
+                onlyByte[0] = b;
+            });
+            if (only[0] instanceof Leaf) {
+                Leaf<?> leaf = (Leaf<?>) only[0];
+                leaf.suffix = concat(node.prefix, onlyByte[0], leaf.suffix);
+                return leaf;
+            }
+            Node child = (Node) only[0];
+            child.prefix = concat(node.prefix, onlyByte[0], child.prefix);
+            return child;
+        }
+        return node;
+    }
+
+    /**
+     * 按 key 的字节顺序（无符号）遍历所有以 prefix 开头的 key
+     */
+    public void prefixScan(byte[] prefix, BiConsumer<byte[], V> action) {
+        Path path = new Path();
+        Object n = root;
+        int depth = 0;
+        while (n != null) {
+            if (n instanceof Leaf) {
+                Leaf<V> leaf = asLeaf(n);
+                int common = commonLength(leaf.suffix, 0, prefix, depth);
+                if (depth + common == prefix.length) {
+                    visit(leaf, path, action);
+                }
+                return;
+            }
+            Node node = (Node) n;
+            int common = commonLength(node.prefix, 0, prefix, depth);
+            if (depth + common == prefix.length) {
+                // prefix 在该节点内结束，整棵子树都满足条件
+                visitAll(node, path, action);
+                return;
+            }
+            if (common < node.prefix.length) {
+                return;
+            }
+            path.append(node.prefix);
+            depth += node.prefix.length;
+            int b = prefix[depth] & 0xFF;
+            path.append(b);
+            n = node.child(b);
+            depth++;
+        }
+    }
+
+    private void visitAll(Object n, Path path, BiConsumer<byte[], V> action) {
+        if (n instanceof Leaf) {
+            visit(asLeaf(n), path, action);
+            return;
+        }
+        Node node = (Node) n;
+        int length = path.length;
+        path.append(node.prefix);
+        if (node.terminal != null) {
+            visit(asLeaf(node.terminal), path, action);
+        }
+        int prefixEnd = path.length;
+        node.forEachChild((child, b) -> {
+            path.append(b);
+            visitAll(child, path, action);
+            path.length = prefixEnd;
+        });
+        path.length = length;
+    }
+
+    private void visit(Leaf<V> leaf, Path path, BiConsumer<byte[], V> action) {
+        byte[] key = Arrays.copyOf(path.bytes, path.length + leaf.suffix.length);
+        System.arraycopy(leaf.suffix, 0, key, path.length, leaf.suffix.length);
+        action.accept(key, leaf.value);
+    }
+
+    /**
+     * 遍历时记录从 root 到当前节点经过的字节
+     */
+    private static class Path {
+        byte[] bytes = new byte[64];
+        int length;
+
+        void append(byte[] part) {
+            ensure(part.length);
+            System.arraycopy(part, 0, bytes, length, part.length);
+            length += part.length;
+        }
+
+        void append(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        private void ensure(int more) {
+            if (length + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, length + more));
+            }
+        }
+    }
+
+    /**
+     * 子节点与 terminal 以 Object 保存，确定是 Leaf 后统一在这里转换
+     */
+    @SuppressWarnings("unchecked")
+    private Leaf<V> asLeaf(Object node) {
+        return (Leaf<V>) node;
+    }
+
+    /**
+     * a 从 aFrom 开始与 b 从 bFrom 开始的公共部分长度
+     */
+    private static int commonLength(byte[] a, int aFrom, byte[] b, int bFrom) {
+        int max = Math.min(a.length - aFrom, b.length - bFrom);
+        int i = 0;
+        while (i < max && a[aFrom + i] == b[bFrom + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static byte[] concat(byte[] head, int b, byte[] tail) {
+        byte[] result = new byte[head.length + 1 + tail.length];
+        System.arraycopy(head, 0, result, 0, head.length);
+        result[head.length] = (byte) b;
+        System.arraycopy(tail, 0, result, head.length + 1, tail.length);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 树的深度（内部节点的层数，叶子节点算一层）
+     */
+    public int depth() {
+        return depthRecursive(root);
+    }
+
+    private int depthRecursive(Object n) {
+        if (n == null) {
+            return 0;
+        }
+        if (n instanceof Leaf) {
+            return 1;
+        }
+        int[] max = new int[1];
+        Node node = (Node) n;
+        node.forEachChild((child, b) -> max[0] = Math.max(max[0], depthRecursive(child)));
+        return max[0] + 1;
+    }
+
+    public static void main(String[] args) {
+        ARTMap<Integer> map = new ARTMap<>();
+        map.put("haha", 1532);
+        map.put("hehe", 25432);
+        map.put("test", 3141);
+        map.put("N0tExpectErr0r", 10000);
+        map.put("Test", 10002);
+        map.put("AAA", 12345);
+        map.put("BBB", 14134);
+        map.put("CCC", 131312);
+        map.put("te", 1);
+        map.put("tester", 2);
+
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.prefixScan("te", (key, value) -> System.out.println("prefix te: " + key + " " + value));
+        map.remove("test");
+        map.remove("BBB");
+        map.remove("ADASD");
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.prefixScan("te", (key, value) -> System.out.println("prefix te: " + key + " " + value));
+
+        int n = 200000;
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = "tenant/0001/region/ap-east/service/order/session/" + Integer.toHexString(i * 31 + 7);
+        }
+        for (int round = 0; round < 3; round++) {
+            ARTMap<Integer> art = new ARTMap<>();
+            RBMap<String, Integer> rb = new RBMap<>(true);
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                art.put(keys[i], i);
+            }
+            for (int i = 0; i < n; i++) {
+                art.get(keys[i]);
+            }
+            long artTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                rb.put(keys[i], i);
+            }
+            for (int i = 0; i < n; i++) {
+                rb.get(keys[i]);
+            }
+            long rbTime = System.nanoTime() - start;
+
+            int[] matched = new int[1];
+            art.prefixScan("tenant/0001/region/ap-east/service/order/session/1f", (key, value) -> matched[0]++);
+            System.out.println("string round " + round + " art:" + artTime / 1000000 + "ms"
+                    + " rb:" + rbTime / 1000000 + "ms depth:" + art.depth() + " prefix matched:" + matched[0]);
+        }
+    }
+}
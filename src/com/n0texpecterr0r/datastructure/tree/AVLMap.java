@@ -1,68 +1,207 @@
 package com.n0texpecterr0r.datastructure.tree;
 
+import com.n0texpecterr0r.datastructure.stats.StructureStats;
+
+import java.util.Comparator;
+
 /**
  * 基于 AVL 树实现的Map
  */
 public class AVLMap<K, V> {
+    private final KeyOrder<K> order;
     private Entry<K, V> root;
     private int size;
 
     private static class Entry<K, V> {
         K key;
+        int hash;
         V value;
         int depth;
         Entry<K, V> left;
         Entry<K, V> right;
 
-        public Entry(K key, V value) {
+        public Entry(K key, int hash, V value) {
             this.key = key;
+            this.hash = hash;
             this.value = value;
             this.depth = 1;
         }
     }
 
+    /**
+     * 只比较 hashCode，hashCode 相同的 key 视为同一个 key
+     */
+    public AVLMap() {
+        this.order = KeyOrder.hashOnly();
+    }
+
+    /**
+     * hashPrefixed 为 true 时先比较 hash，hash 相同再用 key 的 Comparable 比较
+     */
+    public AVLMap(boolean hashPrefixed) {
+        this.order = hashPrefixed ? KeyOrder.<K>hashPrefixed(null) : KeyOrder.<K>hashOnly();
+    }
+
+    /**
+     * 先比较 hash，hash 相同再用 comparator 比较
+     */
+    public AVLMap(Comparator<? super K> comparator) {
+        this.order = KeyOrder.hashPrefixed(comparator);
+    }
+
     public void put(K key, V value) {
-        root = putRecursive(root, key, value);
+        root = putRecursive(root, key, key.hashCode(), value);
     }
 
     /**
      * 在root的子树中递归插入节点
      */
-    private Entry<K, V> putRecursive(Entry<K, V> root, K key, V value) {
+    private Entry<K, V> putRecursive(Entry<K, V> root, K key, int hash, V value) {
         if (root == null) {
             size++;
-            return new Entry<>(key, value);
+            return new Entry<>(key, hash, value);
         }
-        if (key.hashCode() < root.key.hashCode()) {
-            root.left = putRecursive(root.left, key, value);
-        } else if (key.hashCode() > root.key.hashCode()){
-            root.right = putRecursive(root.right, key, value);
+        int cmp = compare(key, hash, root);
+        if (cmp < 0) {
+            root.left = putRecursive(root.left, key, hash, value);
+        } else if (cmp > 0){
+            root.right = putRecursive(root.right, key, hash, value);
         } else {
             root.value = value;
             return root;
         }
         // 在递归返回时，对于插入节点的每个祖先节点进行重平衡并重新计算深度
         root.depth = Math.max(depth(root.left), depth(root.right)) + 1;
-        return balance(root, key);
+        return balance(root, key, hash);
+    }
+
+    /**
+     * 批量插入一组按树中 key 的顺序升序排好的 key
+     * AVL 树的节点没有 parent 指针，这里用一个栈记录从 root 到上一次插入节点的路径作为 finger，
+     * 同时记录路径上每个节点子树 key 的上界。插入下一个 key 时只需弹出上界不大于 key 的节点，
+     * 再从栈顶节点继续向下寻找插入位置，而不必每次都从 root 开始。
+     *
+     * 插入后沿路径向上重新计算深度并平衡，一旦某个祖先的深度没有变化，或者发生了旋转
+     * （旋转后子树深度恢复为插入前），更上层的祖先就不会受到影响，可以提前停止，
+     * 因此重平衡也不必每次回到 root。
+     * keys 并非有序时结果依然正确，遇到比上一个 key 小的 key 会从 root 重新开始查找
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys length: " + keys.length + " values length: " + values.length);
+        }
+        // AVL 树的高度不超过 1.44log(n)，64 层足够
+        Entry<K, V>[] path = newEntryArray(64);
+        // upper[i] 为 path[i] 子树中 key 的上界（不包含），null 表示没有上界
+        Entry<K, V>[] upper = newEntryArray(64);
+        int top = -1;
+        K prevKey = null;
+        int prevHash = 0;
+        for (int i = 0; i < keys.length; i++) {
+            K key = keys[i];
+            int hash = key.hashCode();
+            if (top < 0 || order.compare(key, hash, prevKey, prevHash) < 0) {
+                // 第一个 key 或者出现了逆序，从 root 重新开始
+                top = root == null ? -1 : 0;
+                path[0] = root;
+                upper[0] = null;
+            } else {
+                // 弹出子树范围无法包含 key 的节点
+                while (top > 0 && upper[top] != null && compare(key, hash, upper[top]) >= 0) {
+                    top--;
+                }
+            }
+            prevKey = key;
+            prevHash = hash;
+
+            if (top < 0) {
+                root = new Entry<>(key, hash, values[i]);
+                size++;
+                path[0] = root;
+                upper[0] = null;
+                top = 0;
+                continue;
+            }
+            Entry<K, V> node = path[top];
+            while (true) {
+                int cmp = compare(key, hash, node);
+                if (cmp == 0) {
+                    node.value = values[i];
+                    break;
+                }
+                Entry<K, V> child = cmp < 0 ? node.left : node.right;
+                upper[top + 1] = cmp < 0 ? node : upper[top];
+                if (child == null) {
+                    child = new Entry<>(key, hash, values[i]);
+                    size++;
+                    if (cmp < 0) {
+                        node.left = child;
+                    } else {
+                        node.right = child;
+                    }
+                    path[++top] = child;
+                    top = rebalancePath(path, top, key, hash);
+                    break;
+                }
+                path[++top] = child;
+                node = child;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newEntryArray(int length) {
+        return (Entry<K, V>[]) new Entry<?, ?>[length];
+    }
+
+    /**
+     * 新节点插入到 path[top] 后，沿路径向上重新计算深度并平衡
+     * 返回重平衡后路径中仍然有效的栈顶下标
+     */
+    private int rebalancePath(Entry<K, V>[] path, int top, K key, int hash) {
+        for (int i = top - 1; i >= 0; i--) {
+            Entry<K, V> node = path[i];
+            int oldDepth = node.depth;
+            caculateDepth(node);
+            Entry<K, V> balanced = balance(node, key, hash);
+            if (balanced != node) {
+                // 发生了旋转，子树深度恢复为插入前，上层祖先无需再调整
+                // 旋转后 i 以下的路径已经失效，但 i 处子树的范围不变
+                if (i == 0) {
+                    root = balanced;
+                } else if (path[i - 1].left == node) {
+                    path[i - 1].left = balanced;
+                } else {
+                    path[i - 1].right = balanced;
+                }
+                path[i] = balanced;
+                return i;
+            }
+            if (node.depth == oldDepth) {
+                return top;
+            }
+        }
+        return top;
     }
 
     public void remove(K key) {
-        root = removeRecursive(root, key);
+        root = removeRecursive(root, key, key.hashCode());
     }
 
     /**
      * 删除节点，与二叉搜索树思路差不多，只是需要将删除的节点的所有祖先节点重新进行平衡
      */
-    private Entry<K, V> removeRecursive(Entry<K, V> root, K key) {
+    private Entry<K, V> removeRecursive(Entry<K, V> root, K key, int hash) {
         if (root == null) {
             return null;
         }
-        if (key.hashCode() < root.key.hashCode()) {
-            root.left = removeRecursive(root.left, key);
-        } else if (key.hashCode() > root.key.hashCode()) {
-            root.right = removeRecursive(root.right, key);
+        int cmp = compare(key, hash, root);
+        if (cmp < 0) {
+            root.left = removeRecursive(root.left, key, hash);
+        } else if (cmp > 0) {
+            root.right = removeRecursive(root.right, key, hash);
         } else {
-            // key 的 hashCode 相同，找到了对应的节点
+            // 找到了对应的节点
             if (root.left == null) {
                 size--;
                 // 节点无左子树，只需要让 root 变为其 right 节点
@@ -72,7 +211,6 @@ public class AVLMap<K, V> {
                 // 节点无右子树，只需要让 root 变为其 left 节点
                 root = root.left;
             } else {
-                size--;
                 // 节点有左右子树，则需要找到比其大的最小值或比其小的最大值
                 Entry<K, V> node = root.right;
                 while (node.left != null) {
@@ -80,17 +218,41 @@ public class AVLMap<K, V> {
                 }
                 // 将该位置的节点的数据复制到当前删除的节点
                 root.key = node.key;
+                root.hash = node.hash;
                 root.value = node.value;
-                // 将原先该位置的节点递归删除
-                root.right = removeRecursive(root.right, key);
+                // 将原先该位置的节点递归删除，size 在删除它时减少
+                root.right = removeRecursive(root.right, node.key, node.hash);
             }
         }
         if (root == null) {
             return null;
         }
-        // 在递归返回时，对于插入节点的每个祖先节点进行重平衡并重新计算深度
+        // 在递归返回时，对于删除节点的每个祖先节点进行重平衡并重新计算深度
         root.depth = Math.max(depth(root.left), depth(root.right)) + 1;
-        return balance(root, key);
+        return balanceAfterRemove(root);
+    }
+
+    /**
+     * 删除后的重平衡，四种情况与 balance 相同，但删除的 key 不在失衡的一侧，
+     * 不能用 key 判断情况，改为比较较深一侧子节点的左右子树深度
+     */
+    private Entry<K, V> balanceAfterRemove(Entry<K, V> root) {
+        int balanceFactor = depth(root.left) - depth(root.right);
+        if (balanceFactor > 1) {
+            if (depth(root.left.left) < depth(root.left.right)) {
+                // 情况2
+                root.left = leftRotate(root.left);
+            }
+            return rightRotate(root);
+        }
+        if (balanceFactor < -1) {
+            if (depth(root.right.right) < depth(root.right.left)) {
+                // 情况3
+                root.right = rightRotate(root.right);
+            }
+            return leftRotate(root);
+        }
+        return root;
     }
 
     /**
@@ -104,27 +266,27 @@ public class AVLMap<K, V> {
      * 而对于 2,3两种情况，可以先对于中间节点b分别进行一次左旋/右旋，
      * 之后就变成了 1,4 的状态，只需要继续对节点 a 进行一次右旋/左旋即可了
      */
-    private Entry<K, V> balance(Entry<K, V> root, K key) {
+    private Entry<K, V> balance(Entry<K, V> root, K key, int hash) {
         int balanceFactor = depth(root.left) - depth(root.right);
         // 情况1，左边更深，且插入在了最左节点的左节点，直接右旋
-        if (balanceFactor > 1 && key.hashCode() < root.left.key.hashCode()) {
+        if (balanceFactor > 1 && compare(key, hash, root.left) < 0) {
             // 对根节点 a 进行右旋
             return rightRotate(root);
         }
         // 情况4，右边更深，且插入在了最右节点的右节点，直接左旋
-        if (balanceFactor < -1 && key.hashCode() > root.right.key.hashCode()) {
+        if (balanceFactor < -1 && compare(key, hash, root.right) > 0) {
             // 对根节点 a 进行左旋
             return leftRotate(root);
         }
         // 情况2，左边更深，但插入在了最左节点的右节点，需要先左旋回到情况1，之后进行右旋
-        if (balanceFactor > 1 && key.hashCode() > root.left.key.hashCode()) {
+        if (balanceFactor > 1 && compare(key, hash, root.left) > 0) {
             // 对中间节点 b 进行左旋
             root.left = leftRotate(root.left);
             // 再对根节点 a 进行右旋
             return rightRotate(root);
         }
         // 情况3，右边更深，但插入在了最右节点的左节点，需要先右旋回到情况4，之后进行左旋
-        if (balanceFactor < -1 && key.hashCode() < root.right.key.hashCode()) {
+        if (balanceFactor < -1 && compare(key, hash, root.right) < 0) {
             // 对中间节点 b 进行右旋
             root.right = rightRotate(root.right);
             // 再对根节点 a 进行左旋
@@ -164,33 +326,75 @@ public class AVLMap<K, V> {
     }
 
     public V get(K key) {
-        return getRecursive(root, key);
+        return getRecursive(root, key, key.hashCode());
     }
 
     /**
      * 递归在root的子树中寻找key对于的value
      */
-    private V getRecursive(Entry<K, V> root, K key) {
+    private V getRecursive(Entry<K, V> root, K key, int hash) {
         if (root == null) {
             return null;
         }
-        if (key.hashCode() < root.key.hashCode()) {
-            return getRecursive(root.left, key);
-        } else if (key.hashCode() > root.key.hashCode()){
-            return getRecursive(root.right, key);
+        int cmp = compare(key, hash, root);
+        if (cmp < 0) {
+            return getRecursive(root.left, key, hash);
+        } else if (cmp > 0){
+            return getRecursive(root.right, key, hash);
         } else {
             return root.value;
         }
     }
 
+    /**
+     * 比较 key 与节点中的 key，节点的 hash 已缓存在节点中
+     */
+    private int compare(K key, int hash, Entry<K, V> node) {
+        return order.compare(key, hash, node.key, node.hash);
+    }
+
     public int size() {
         return size;
     }
 
+    /**
+     * 生成包含当前所有元素的只读 FrozenMap，之后对本 Map 的修改不会影响它
+     */
+    public FrozenMap<K, V> freeze() {
+        int[] hashes = new int[size];
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        collect(root, hashes, keys, values, 0);
+        return new FrozenMap<>(order, size, hashes, keys, values);
+    }
+
+    /**
+     * 中序遍历，将元素按顺序放入数组，返回下一个要放入的下标
+     */
+    private int collect(Entry<K, V> root, int[] hashes, Object[] keys, Object[] values, int index) {
+        if (root == null) {
+            return index;
+        }
+        index = collect(root.left, hashes, keys, values, index);
+        hashes[index] = root.hash;
+        keys[index] = root.key;
+        values[index] = root.value;
+        return collect(root.right, hashes, keys, values, index + 1);
+    }
+
     public int depth() {
         return depth(root);
     }
 
+    /**
+     * 内存占用与形状，O(1)，高度即根节点中维护的深度
+     */
+    public StructureStats stats() {
+        long bytes = StructureStats.objectBytes(2 * StructureStats.REFERENCE + 4)
+                + size * StructureStats.objectBytes(4 * StructureStats.REFERENCE + 4 + 4);
+        return new StructureStats(bytes, 0, size, depth(root), true, 0);
+    }
+
     private void caculateDepth(Entry<K, V> root) {
         root.depth = Math.max(depth(root.left), depth(root.right)) + 1;
     }
@@ -219,5 +423,16 @@ public class AVLMap<K, V> {
         System.out.println(map.get("hehe"));
         System.out.println("size:" + map.size());
         System.out.println("depth:" + map.depth());
+
+        Integer[] keys = new Integer[10000];
+        Integer[] values = new Integer[10000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i * 2;
+            values[i] = i;
+        }
+        AVLMap<Integer, Integer> batch = new AVLMap<>();
+        batch.putAll(keys, values);
+        System.out.println("putAll size:" + batch.size() + " depth:" + batch.depth() + " get(5000):" + batch.get(5000));
+        System.out.println(batch.stats());
     }
 }
@@ -1,59 +1,98 @@
 package com.n0texpecterr0r.datastructure.tree;
 
+import com.n0texpecterr0r.datastructure.stats.StructureStats;
+
+import java.util.Comparator;
+
 /**
  * 二叉搜索树实现的 Map
  */
 public class BSTMap<K, V>  {
+    private final KeyOrder<K> order;
     private Entry<K, V> root;
     private int size;
+    // 插入时出现过的最大深度
+    private int maxDepth;
 
     private static class Entry<K, V> {
         K key;
+        int hash;
         V value;
         Entry<K, V> left;
         Entry<K, V> right;
 
-        public Entry(K key, V value) {
+        public Entry(K key, int hash, V value) {
             this.key = key;
+            this.hash = hash;
             this.value = value;
         }
     }
 
+    /**
+     * 只比较 hashCode，hashCode 相同的 key 视为同一个 key
+     */
+    public BSTMap() {
+        this.order = KeyOrder.hashOnly();
+    }
+
+    /**
+     * hashPrefixed 为 true 时先比较 hash，hash 相同再用 key 的 Comparable 比较
+     */
+    public BSTMap(boolean hashPrefixed) {
+        this.order = hashPrefixed ? KeyOrder.<K>hashPrefixed(null) : KeyOrder.<K>hashOnly();
+    }
+
+    /**
+     * 先比较 hash，hash 相同再用 comparator 比较
+     */
+    public BSTMap(Comparator<? super K> comparator) {
+        this.order = KeyOrder.hashPrefixed(comparator);
+    }
+
     public void put(K key, V value) {
+        int hash = key.hashCode();
         if (root == null) {
-            root = new Entry<>(key, value);
+            root = new Entry<>(key, hash, value);
             size++;
+            maxDepth = Math.max(maxDepth, 1);
             return;
         }
         Entry<K, V> parent = null;
         Entry<K, V> node = root;
+        int cmp = 0;
+        int depth = 1;
 
         while (node != null) {
             parent = node;
-            if (key.hashCode() < node.key.hashCode()) {
+            depth++;
+            cmp = compare(key, hash, node);
+            if (cmp < 0) {
                 node = node.left;
-            } else if (key.hashCode() > node.key.hashCode()) {
+            } else if (cmp > 0) {
                 node = node.right;
             } else {
                 node.value = value;
                 return;
             }
         }
-        if (key.hashCode() < parent.key.hashCode()) {
+        if (cmp < 0) {
             size++;
-            parent.left = new Entry<>(key, value);
+            parent.left = new Entry<>(key, hash, value);
         } else {
             size++;
-            parent.right = new Entry<>(key, value);
+            parent.right = new Entry<>(key, hash, value);
         }
+        maxDepth = Math.max(maxDepth, depth);
     }
 
     public V get(K key) {
+        int hash = key.hashCode();
         Entry<K, V> node = root;
         while (node != null) {
-            if (key.hashCode() == node.key.hashCode()) {
+            int cmp = compare(key, hash, node);
+            if (cmp == 0) {
                 return node.value;
-            } else if (key.hashCode() < node.key.hashCode()) {
+            } else if (cmp < 0) {
                 node = node.left;
             } else {
                 node = node.right;
@@ -63,14 +102,19 @@ public class BSTMap<K, V>  {
     }
 
     public void remove(K key) {
+        int hash = key.hashCode();
         Entry<K, V> parent = null;
         Entry<K, V> node = root;
         while(node != null) {
-            if (key.hashCode() == node.key.hashCode()) {
+            int cmp = compare(key, hash, node);
+            if (cmp == 0) {
                 deleteNode(parent, node);
                 size--;
+                if (size == 0) {
+                    maxDepth = 0;
+                }
                 return;
-            } else if (key.hashCode() < node.key.hashCode()) {
+            } else if (cmp < 0) {
                 parent = node;
                 node = node.left;
             } else {
@@ -83,7 +127,7 @@ public class BSTMap<K, V>  {
     private void deleteNode(Entry<K, V> parent, Entry<K, V> node) {
          if (node.left == null) {
              // 节点无左子树，只需要让 parent 指向其 right
-             if (node.key.hashCode() <  parent.key.hashCode()) {
+             if (compare(node.key, node.hash, parent) < 0) {
                  parent.left = node.right;
              } else {
                  parent.right = node.right;
@@ -91,7 +135,7 @@ public class BSTMap<K, V>  {
              return;
          } else if (node.right == null) {
              // 节点无右子树，只需要让 parent 指向其 left
-             if (node.key.hashCode() <  parent.key.hashCode()) {
+             if (compare(node.key, node.hash, parent) < 0) {
                  parent.left = node.left;
              } else {
                  parent.right = node.left;
@@ -110,6 +154,23 @@ public class BSTMap<K, V>  {
          }
     }
 
+    /**
+     * 比较 key 与节点中的 key，节点的 hash 已缓存在节点中
+     */
+    private int compare(K key, int hash, Entry<K, V> node) {
+        return order.compare(key, hash, node.key, node.hash);
+    }
+
+    /**
+     * 内存占用与形状，O(1)
+     * 高度为插入时出现过的最大深度，删除节点后不会降低，因此是实际高度的上界
+     */
+    public StructureStats stats() {
+        long bytes = StructureStats.objectBytes(2 * StructureStats.REFERENCE + 4 + 4)
+                + size * StructureStats.objectBytes(4 * StructureStats.REFERENCE + 4);
+        return new StructureStats(bytes, 0, size, maxDepth, false, 0);
+    }
+
     public static void main(String[] args) {
         BSTMap<String, Integer> map = new BSTMap<>();
         map.put("haha", 1532);
@@ -122,5 +183,6 @@ public class BSTMap<K, V>  {
         map.remove("hehe");
         System.out.println(map.get("hehe"));
         System.out.println("size:" + map.size);
+        System.out.println(map.stats());
     }
 }
@@ -0,0 +1,190 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import java.util.function.BiConsumer;
+
+/**
+ * 由 RBMap 或 AVLMap 的 freeze() 生成的只读 Map
+ *
+ * 所有 hash 按 Eytzinger 顺序（即二叉堆的层序，下标从 1 开始，k 的子节点为 2k 与 2k+1）
+ * 存放在一个 int 数组中，key 与 value 以相同的顺序存放在平行的数组里。
+ * 查找时只在 int 数组上下降，每层只有一次比较，比较结果直接参与下标计算而不是作为分支条件；
+ * 树的上面几层集中在数组开头，总是在缓存中，而每个节点不再需要 Entry 对象和左右指针。
+ *
+ * Java 没有软件预取指令，但 k 的后代 16k..16k+15 在数组中连续存放，
+ * 硬件预取器可以很好地跟上这种访问模式
+ */
+public final class FrozenMap<K, V> {
+    private final KeyOrder<K> order;
+    private final int size;
+    // 下标 0 不使用
+    private final int[] hashes;
+    private final Object[] keys;
+    private final Object[] values;
+
+    /**
+     * 参数为按 key 顺序排列的数组，长度至少为 size
+     */
+    FrozenMap(KeyOrder<K> order, int size, int[] sortedHashes, Object[] sortedKeys, Object[] sortedValues) {
+        this.order = order;
+        this.size = size;
+        this.hashes = new int[size + 1];
+        this.keys = new Object[size + 1];
+        this.values = new Object[size + 1];
+        fill(sortedHashes, sortedKeys, sortedValues, 0, 1);
+    }
+
+    /**
+     * 中序遍历 Eytzinger 数组，依次放入排好序的元素，返回下一个要放入的元素下标
+     */
+    private int fill(int[] sortedHashes, Object[] sortedKeys, Object[] sortedValues, int i, int k) {
+        if (k <= size) {
+            i = fill(sortedHashes, sortedKeys, sortedValues, i, 2 * k);
+            hashes[k] = sortedHashes[i];
+            keys[k] = sortedKeys[i];
+            values[k] = sortedValues[i];
+            i++;
+            i = fill(sortedHashes, sortedKeys, sortedValues, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        int k = find(key);
+        return k == 0 ? null : (V) values[k];
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) != 0;
+    }
+
+    /**
+     * 返回 key 所在的下标，不存在时返回 0
+     */
+    @SuppressWarnings("unchecked")
+    private int find(K key) {
+        int hash = key.hashCode();
+        int k = lowerBound(hash);
+        // hash 前缀模式下 hash 相同的 key 按 key 的顺序相邻存放，逐个向后比较
+        while (k != 0 && hashes[k] == hash) {
+            int cmp = order.compare(key, hash, (K) keys[k], hashes[k]);
+            if (cmp == 0) {
+                return k;
+            }
+            if (cmp < 0) {
+                return 0;
+            }
+            k = successor(k);
+        }
+        return 0;
+    }
+
+    /**
+     * 第一个 hash 不小于 hash 的下标，不存在时返回 0
+     *
+     * 下降时向右走记为 1，向左走记为 0，走到数组之外后 k 的二进制末尾是若干个 1 加一个 0，
+     * 最后一次向左走的位置就是答案，去掉末尾的这些位即可回到该位置
+     */
+    private int lowerBound(int hash) {
+        int k = 1;
+        while (k <= size) {
+            k = 2 * k + (hashes[k] < hash ? 1 : 0);
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * 中序遍历中的下一个下标，不存在时返回 0
+     */
+    private int successor(int k) {
+        if (2 * k + 1 <= size) {
+            k = 2 * k + 1;
+            while (2 * k <= size) {
+                k = 2 * k;
+            }
+            return k;
+        }
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    /**
+     * 按 key 的顺序遍历
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (size == 0) {
+            return;
+        }
+        int k = 1;
+        while (2 * k <= size) {
+            k = 2 * k;
+        }
+        for (; k != 0; k = successor(k)) {
+            action.accept((K) keys[k], (V) values[k]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static void main(String[] args) {
+        RBMap<String, Integer> map = new RBMap<>(true);
+        map.put("haha", 1532);
+        map.put("hehe", 25432);
+        map.put("Aa", 1);
+        map.put("BB", 2);
+        FrozenMap<String, Integer> frozen = map.freeze();
+        System.out.println(frozen.get("hehe") + " " + frozen.get("Aa") + " " + frozen.get("BB")
+                + " " + frozen.get("C#") + " size:" + frozen.size());
+
+        int n = 1000000;
+        RBMap<Integer, Integer> rb = new RBMap<>();
+        AVLMap<Integer, Integer> avl = new AVLMap<>();
+        int[] lookups = new int[n];
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < n; i++) {
+            rb.put(i * 3, i);
+            avl.put(i * 3, i);
+            lookups[i] = random.nextInt(n * 3);
+        }
+        FrozenMap<Integer, Integer> frozenRb = rb.freeze();
+        FrozenMap<Integer, Integer> frozenAvl = avl.freeze();
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = lookups[i];
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < n; i++) {
+                if (rb.get(boxed[i]) != null) {
+                    found++;
+                }
+            }
+            long rbTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                if (avl.get(boxed[i]) != null) {
+                    found++;
+                }
+            }
+            long avlTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                if (frozenRb.get(boxed[i]) != null) {
+                    found++;
+                }
+            }
+            long frozenTime = System.nanoTime() - start;
+
+            System.out.println("round " + round + " RBMap:" + rbTime / 1000000 + "ms"
+                    + " AVLMap:" + avlTime / 1000000 + "ms"
+                    + " FrozenMap:" + frozenTime / 1000000 + "ms found:" + found
+                    + " frozen avl size:" + frozenAvl.size());
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import com.n0texpecterr0r.datastructure.linear.ArrayList;
+
+/**
+ * 区间树，以区间 [start, end]（闭区间）为 key 的红黑树 Map，按起点排序，起点相同时按终点排序，
+ * 因此起点相同而终点不同的区间可以同时存在，只有完全相同的区间才会互相替换
+ *
+ * 在 LongRBMap 的基础上，每个节点额外记录以它为根的子树中所有区间终点的最大值 maxEnd。
+ * 查询与 [lo, hi] 重叠的区间时，maxEnd < lo 的子树中不可能有重叠的区间，整棵跳过；
+ * 起点 > hi 的节点的右子树同样可以跳过。每个结果最多引出一条 O(log n) 的搜索路径，
+ * 因此查询的复杂度为 O(min(n, k log n))，k 为结果数（k 为 0 时为 O(log n)）；
+ * 区间较短、结果在树中较为集中时实际接近 O(log n + k)。
+ *
+ * 旋转只改变两个节点的子树，旋转后按自底向上的顺序重新计算这两个节点的 maxEnd；
+ * 插入与删除后沿父节点重新计算到根节点。其余插入、删除及重整的逻辑与 LongRBMap 相同
+ */
+public class IntervalMap<V> {
+    public static final boolean RED = true;
+    public static final boolean BLACK = false;
+
+    private Entry<V> root;
+    private int size;
+
+    private static class Entry<V> {
+        long key;
+        long end;
+        long maxEnd;
+        V value;
+        boolean color;
+        Entry<V> left;
+        Entry<V> right;
+        Entry<V> parent;
+
+        public Entry(long key, long end, V value, Entry<V> parent) {
+            this.key = key;
+            this.end = end;
+            this.maxEnd = end;
+            this.value = value;
+            this.parent = parent;
+            this.color = RED;
+        }
+    }
+
+    /**
+     * 加入区间 [start, end]，已经存在完全相同的区间时替换它的值
+     */
+    public void put(long start, long end, V value) {
+        if (end < start) {
+            throw new IllegalArgumentException("start: " + start + " end: " + end);
+        }
+        Entry<V> parent = null;
+        Entry<V> node = root;
+        int cmp = 0;
+
+        // 寻找插入位置
+        while (node != null) {
+            parent = node;
+            cmp = compare(start, end, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                // 找到对应位置，直接替换值，区间不变，不需要重整也不需要更新 maxEnd
+                node.value = value;
+                return;
+            }
+        }
+
+        // 插入节点
+        Entry<V> toInsert = new Entry<>(start, end, value, parent);
+        if (parent == null) {
+            this.root = toInsert;
+        } else if (cmp < 0) {
+            parent.left = toInsert;
+        } else {
+            parent.right = toInsert;
+        }
+        size++;
+        updateMaxEnd(parent);
+        fixupAfterPut(toInsert);
+    }
+
+    /**
+     * 插入后重整红黑树，情况划分见 RBMap
+     */
+    private void fixupAfterPut(Entry<V> node) {
+        while (node != null && node != root && colorOf(parentOf(node)) == RED) {
+            // 祖父节点不可能为 null（否则parent不可能为红色）
+            if (parentOf(node) == leftOf(parentOf(parentOf(node)))) {
+                // 左侧插入
+                Entry<V> uncle = rightOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    // 叔叔也是红色，变色
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == rightOf(parentOf(node))) {
+                        // 情况4，需要左旋
+                        node = parentOf(node);
+                        leftRotate(node);
+                    }
+                    // 情况5，互换父节点与祖父节点的颜色，并对祖父节点进行右旋
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    rightRotate(parentOf(parentOf(node)));
+                }
+            } else {
+                // 右侧插入
+                Entry<V> uncle = leftOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    // 叔叔也是红色，变色
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == leftOf(parentOf(node))) {
+                        // 情况4，需要右旋
+                        node = parentOf(node);
+                        rightRotate(node);
+                    }
+                    // 情况5，互换父节点与祖父节点的颜色，并对祖父节点进行左旋
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    leftRotate(parentOf(parentOf(node)));
+                }
+            }
+        }
+        // 每次都重新将 root 置为黑色
+        setColor(root, BLACK);
+    }
+
+    /**
+     * 区间 [start, end] 的值
+     */
+    public V get(long start, long end) {
+        Entry<V> node = findNode(start, end);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(long start, long end) {
+        return findNode(start, end) != null;
+    }
+
+    /**
+     * 与 [lo, hi] 重叠的所有区间的值，按起点从小到大排列，起点相同时按终点从小到大排列
+     */
+    public ArrayList<V> overlapping(long lo, long hi) {
+        ArrayList<V> result = new ArrayList<>();
+        if (lo <= hi) {
+            overlapping(root, lo, hi, result);
+        }
+        return result;
+    }
+
+    /**
+     * 包含 point 的所有区间的值
+     */
+    public ArrayList<V> overlapping(long point) {
+        return overlapping(point, point);
+    }
+
+    private void overlapping(Entry<V> node, long lo, long hi, ArrayList<V> result) {
+        if (node == null || node.maxEnd < lo) {
+            // 子树中所有区间都在 lo 之前结束
+            return;
+        }
+        overlapping(node.left, lo, hi, result);
+        if (node.key <= hi) {
+            if (node.end >= lo) {
+                result.add(node.value);
+            }
+            // 否则右子树的起点都大于 hi，不可能重叠
+            overlapping(node.right, lo, hi, result);
+        }
+    }
+
+    private Entry<V> findNode(long start, long end) {
+        Entry<V> node = root;
+        while (node != null) {
+            int cmp = compare(start, end, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 先比较起点，起点相同时比较终点
+     */
+    private static int compare(long start, long end, Entry<?> node) {
+        int cmp = Long.compare(start, node.key);
+        return cmp != 0 ? cmp : Long.compare(end, node.end);
+    }
+
+    public void remove(long start, long end) {
+        Entry<V> node = findNode(start, end);
+        if (node != null) {
+            deleteNode(node);
+            size--;
+        }
+    }
+
+    /**
+     * 与BST的删除比较像，只是需要注意，若删除的节点是黑色，需要进行重整
+     */
+    private void deleteNode(Entry<V> node) {
+        if (node.left != null && node.right != null) {
+            // 左右子节点均不为null，则需要找到子树中比它大的最小值或比它小的最大值
+            Entry<V> leftNode = node.right;
+            while (leftNode.left != null) {
+                leftNode = leftNode.left;
+            }
+            // 将该节点的值复制过来，并删除该节点
+            node.key = leftNode.key;
+            node.end = leftNode.end;
+            node.value = leftNode.value;
+            // 被删除的 leftNode 还在树中，重新计算后路径上的 maxEnd 都是准确的
+            updateMaxEnd(node);
+            node = leftNode;
+        }
+
+        Entry<V> replace = node.left != null ? node.left : node.right;
+        // 此时子节点一定有一个为 null，用不为 null 的子节点来替代
+        if (replace != null) {
+            replace.parent = node.parent;
+            if (node.parent == null) {
+                // 如果删除的节点是根节点，用replace替代
+                root = replace;
+            } else if (node == node.parent.left) {
+                // 替换 parent 左节点
+                node.parent.left = replace;
+            } else {
+                // 替换 parent 右节点
+                node.parent.right = replace;
+            }
+            node.left = null;
+            node.right = null;
+            node.parent = null;
+            updateMaxEnd(replace.parent);
+            if (node.color == BLACK) {
+                // 如果删除了黑色节点，需要重整
+                fixupAfterRemove(replace);
+            }
+        } else if (node.parent == null) {
+            // 删除的是根节点，则用null替代
+            root = null;
+        } else {
+            // 删除的节点没有子节点，并且该节点不是根节点
+            if (node.color == BLACK) {
+                // 如果删除的是黑色节点，需要先进行重整
+                fixupAfterRemove(node);
+            }
+            // 从父节点中删除
+            if (node.parent != null) {
+                Entry<V> parent = node.parent;
+                if (node == parent.left) {
+                    parent.left = null;
+                } else if (node == parent.right) {
+                    parent.right = null;
+                }
+                node.parent = null;
+                updateMaxEnd(parent);
+            }
+        }
+    }
+
+    /**
+     * 删除后若删除的节点是黑节点，会影响平衡，进行重整，情况划分见 RBMap
+     */
+    private void fixupAfterRemove(Entry<V> node) {
+        while (node != root && colorOf(node) == BLACK) {
+            if (node == leftOf(parentOf(node))) {
+                Entry<V> bro = rightOf(parentOf(node));
+                if (colorOf(bro) == RED) {
+                    // 情况2（bro为红色），结束后会变为4、5、6中一种
+                    // （4、5、6中bro均为黑色）
+                    setColor(bro, BLACK);
+                    setColor(parentOf(node), RED);
+                    leftRotate(parentOf(node));
+                    bro = rightOf(parentOf(node));
+                }
+
+                if (colorOf(leftOf(bro)) == BLACK
+                        && colorOf(rightOf(bro)) == BLACK) {
+                    // 情况3、4（重新对父节点平衡处理）
+                    // 此处对于情况4来说，虽然只是设置了兄弟节点为红色，
+                    // 但下一轮循环时，由于父节点往上均是满足条件的，因此父节点在最后会被设置为黑色
+                    setColor(bro, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(rightOf(bro)) == BLACK) {
+                        // 情况5（说明bro的左红右黑），结束后会变为情况6
+                        setColor(leftOf(bro), BLACK);
+                        setColor(bro, RED);
+                        rightRotate(bro);
+                        bro = rightOf(parentOf(node));
+                    }
+                    // 情况6（说明bro右红），左旋，并且交换父节点与兄弟节点颜色
+                    setColor(bro, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);    // 兄弟节点一定是黑色（否则已经不满足红黑树条件）
+                    setColor(rightOf(bro), BLACK);      // 将兄弟节点右子节点置为黑色
+                    leftRotate(parentOf(node));
+                    node = root;
+                }
+            } else {
+                Entry<V> bro = leftOf(parentOf(node));
+                if (colorOf(bro) == RED) {
+                    // 情况2
+                    setColor(bro, BLACK);
+                    setColor(parentOf(node), RED);
+                    rightRotate(parentOf(node));
+                    bro = leftOf(parentOf(node));
+                }
+
+                if (colorOf(leftOf(bro)) == BLACK
+                        && colorOf(rightOf(bro)) == BLACK) {
+                    // 情况3、4
+                    setColor(bro, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(leftOf(bro)) == BLACK) {
+                        // 情况5
+                        setColor(rightOf(bro), BLACK);
+                        setColor(bro, RED);
+                        leftRotate(bro);
+                        bro = leftOf(parentOf(node));
+                    }
+                    // 情况6
+                    setColor(bro, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);
+                    setColor(leftOf(bro), BLACK);
+                    rightRotate(parentOf(node));
+                    node = root;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth() {
+        return depthRecursive(root);
+    }
+
+    private int depthRecursive(Entry<V> root) {
+        if (root == null) {
+            return 0;
+        }
+        return Math.max(depthRecursive(root.left), depthRecursive(root.right)) + 1;
+    }
+
+    /**
+     * 从 node 开始沿父节点向上重新计算 maxEnd，直到根节点
+     */
+    private void updateMaxEnd(Entry<V> node) {
+        for (; node != null; node = node.parent) {
+            caculateMaxEnd(node);
+        }
+    }
+
+    private void caculateMaxEnd(Entry<V> node) {
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private void setColor(Entry<V> node, boolean color) {
+        if (node != null) {
+            node.color = color;
+        }
+    }
+
+    private boolean colorOf(Entry<V> node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private Entry<V> parentOf(Entry<V> node) {
+        return node == null ? null : node.parent;
+    }
+
+    private Entry<V> leftOf(Entry<V> node) {
+        return node == null ? null : node.left;
+    }
+
+    private Entry<V> rightOf(Entry<V> node) {
+        return node == null ? null : node.right;
+    }
+
+    /**
+     * 左旋操作，将新root的left给旧root的right，旧root变为新root的left
+     */
+    private void leftRotate(Entry<V> root) {
+        Entry<V> newRoot = root.right;
+        root.right = newRoot.left;
+
+        if (newRoot.left != null) {
+            newRoot.left.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.left = root;
+        root.parent = newRoot;
+        caculateMaxEnd(root);
+        caculateMaxEnd(newRoot);
+    }
+
+    /**
+     * 右旋操作，将新root的right给旧root的left，旧root变为新root的right
+     */
+    private void rightRotate(Entry<V> root) {
+        Entry<V> newRoot = root.left;
+        root.left = newRoot.right;
+
+        if (newRoot.right != null) {
+            newRoot.right.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.right = root;
+        root.parent = newRoot;
+        caculateMaxEnd(root);
+        caculateMaxEnd(newRoot);
+    }
+
+    public static void main(String[] args) {
+        IntervalMap<String> map = new IntervalMap<>();
+        map.put(1, 5, "a");
+        map.put(3, 10, "b");
+        map.put(7, 8, "c");
+        map.put(12, 20, "d");
+        map.put(15, 15, "e");
+        System.out.println("overlap 6:" + join(map.overlapping(6)));
+        System.out.println("overlap [9, 14]:" + join(map.overlapping(9, 14)));
+        // 起点相同的区间同时存在
+        map.put(12, 13, "f");
+        System.out.println("overlap [9, 14]:" + join(map.overlapping(9, 14)));
+        map.remove(3, 10);
+        System.out.println("after remove [3, 10], overlap [9, 14]:" + join(map.overlapping(9, 14)));
+
+        // 一天内的 100 万个时间段，大部分较短，查询若干个窗口
+        int n = 1000000;
+        long day = 86400000L;
+        java.util.Random random = new java.util.Random(42);
+        IntervalMap<Integer> ranges = new IntervalMap<>();
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            long start = (long) (random.nextDouble() * day);
+            long end = start + random.nextInt(random.nextInt(100) == 0 ? 3600000 : 60000);
+            ranges.put(start, end, i);
+            starts[i] = start;
+            ends[i] = end;
+        }
+        for (int round = 0; round < 3; round++) {
+            int queries = 200;
+            long tree = 0;
+            long scan = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                long lo = (long) q * day / queries;
+                tree += ranges.overlapping(lo, lo + 1000).size();
+            }
+            long treeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int q = 0; q < queries; q++) {
+                long lo = (long) q * day / queries;
+                for (int i = 0; i < n; i++) {
+                    // 完全相同的区间在树中只保留一个，这里不做区分，只用来对比耗时
+                    if (starts[i] <= lo + 1000 && ends[i] >= lo) {
+                        scan++;
+                    }
+                }
+            }
+            long scanTime = System.nanoTime() - start;
+            System.out.println("round " + round + " overlapping:" + treeTime / 1000000 + "ms found:" + tree
+                    + " scan:" + scanTime / 1000000 + "ms found:" + scan);
+        }
+    }
+
+    private static String join(ArrayList<String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            builder.append(' ').append(values.get(i));
+        }
+        return builder.toString();
+    }
+}
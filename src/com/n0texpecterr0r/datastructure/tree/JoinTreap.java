@@ -0,0 +1,426 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 join 实现的 Treap Map
+ *
+ * Treap 的每个节点除了 key 外还有一个随机的优先级，key 满足二叉搜索树的性质，
+ * 优先级满足堆的性质（父节点的优先级不小于子节点），从而期望高度为 O(log n)。
+ *
+ * 所有操作都建立在两个基本操作上：
+ * 1. split(t, key)：将树按 key 拆分为小于 key 的部分、等于 key 的节点以及大于 key 的部分
+ * 2. join(l, m, r)：l 中的 key 均小于 m，r 中的 key 均大于 m，按优先级将三者合并为一棵树
+ * put、remove 都只是一次 split 加一次 join。
+ *
+ * 对于 union、intersection、difference，用两个根节点中优先级更高的那个去 split 另一棵树，
+ * 再对左右两部分分别递归，最后 join 起来。设两棵树大小为 m <= n，总代价为 O(m log(n/m + 1))，
+ * 而左右两部分互不相关，可以交给 ForkJoinPool 并行处理。
+ *
+ * split、join 以及集合运算都会直接复用参与运算的树的节点，运算结束后原来的树会被清空
+ */
+public class JoinTreap<K, V> {
+    // 两棵子树的总规模小于该值时不再拆分出并行任务
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private static final int UNION = 0;
+    private static final int INTERSECTION = 1;
+    private static final int DIFFERENCE = 2;
+
+    private final KeyOrder<K> order;
+    private Entry<K, V> root;
+
+    private static class Entry<K, V> {
+        K key;
+        int hash;
+        V value;
+        int priority;
+        int size;
+        Entry<K, V> left;
+        Entry<K, V> right;
+
+        public Entry(K key, int hash, V value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.size = 1;
+        }
+    }
+
+    /**
+     * split 的结果，left 中的 key 均小于 key，right 中的 key 均大于 key
+     * 若原树中存在 key，value 为其对应的值
+     */
+    public static class Split<K, V> {
+        public final JoinTreap<K, V> left;
+        public final JoinTreap<K, V> right;
+        public final V value;
+
+        private Split(JoinTreap<K, V> left, JoinTreap<K, V> right, V value) {
+            this.left = left;
+            this.right = right;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 节点级别 split 的结果
+     */
+    private static class Parts<K, V> {
+        Entry<K, V> left;
+        Entry<K, V> mid;
+        Entry<K, V> right;
+    }
+
+    /**
+     * 只比较 hashCode，hashCode 相同的 key 视为同一个 key
+     */
+    public JoinTreap() {
+        this(KeyOrder.<K>hashOnly(), null);
+    }
+
+    /**
+     * 先比较 hash，hash 相同再用 comparator 比较，comparator 为 null 时使用 key 的 Comparable
+     */
+    public JoinTreap(Comparator<? super K> comparator) {
+        this(KeyOrder.<K>hashPrefixed(comparator), null);
+    }
+
+    private JoinTreap(KeyOrder<K> order, Entry<K, V> root) {
+        this.order = order;
+        this.root = root;
+    }
+
+    public void put(K key, V value) {
+        int hash = key.hashCode();
+        Parts<K, V> parts = new Parts<>();
+        split(root, key, hash, order, parts);
+        Entry<K, V> node = parts.mid;
+        if (node == null) {
+            node = new Entry<>(key, hash, value);
+        } else {
+            node.value = value;
+        }
+        root = join3(parts.left, node, parts.right);
+    }
+
+    public V get(K key) {
+        int hash = key.hashCode();
+        Entry<K, V> node = root;
+        while (node != null) {
+            int cmp = order.compare(key, hash, node.key, node.hash);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public void remove(K key) {
+        Parts<K, V> parts = new Parts<>();
+        split(root, key, key.hashCode(), order, parts);
+        root = join2(parts.left, parts.right);
+    }
+
+    /**
+     * 按 key 将这棵树拆分为两棵树，调用后这棵树会被清空
+     */
+    public Split<K, V> split(K key) {
+        Parts<K, V> parts = new Parts<>();
+        split(root, key, key.hashCode(), order, parts);
+        root = null;
+        return new Split<>(new JoinTreap<>(order, parts.left), new JoinTreap<>(order, parts.right),
+                parts.mid == null ? null : parts.mid.value);
+    }
+
+    /**
+     * 合并两棵树，要求 left 中的 key 均小于 right 中的 key，调用后两棵树会被清空
+     */
+    public static <K, V> JoinTreap<K, V> join(JoinTreap<K, V> left, JoinTreap<K, V> right) {
+        if (left.root != null && right.root != null) {
+            Entry<K, V> max = left.root;
+            while (max.right != null) {
+                max = max.right;
+            }
+            Entry<K, V> min = right.root;
+            while (min.left != null) {
+                min = min.left;
+            }
+            if (left.order.compare(max.key, max.hash, min.key, min.hash) >= 0) {
+                throw new IllegalArgumentException("left max: " + max.key + " right min: " + min.key);
+            }
+        }
+        JoinTreap<K, V> result = new JoinTreap<>(left.order, join2(left.root, right.root));
+        left.root = null;
+        right.root = null;
+        return result;
+    }
+
+    /**
+     * 并集，key 相同时保留 b 中的值
+     * 集合运算使用 a 的 key 比较方式，两棵树应当使用相同的比较方式
+     */
+    public static <K, V> JoinTreap<K, V> union(JoinTreap<K, V> a, JoinTreap<K, V> b) {
+        return setOperation(UNION, a, b);
+    }
+
+    /**
+     * 交集，值取自 a
+     */
+    public static <K, V> JoinTreap<K, V> intersection(JoinTreap<K, V> a, JoinTreap<K, V> b) {
+        return setOperation(INTERSECTION, a, b);
+    }
+
+    /**
+     * 差集，即 a 中存在而 b 中不存在的 key
+     */
+    public static <K, V> JoinTreap<K, V> difference(JoinTreap<K, V> a, JoinTreap<K, V> b) {
+        return setOperation(DIFFERENCE, a, b);
+    }
+
+    private static <K, V> JoinTreap<K, V> setOperation(int op, JoinTreap<K, V> a, JoinTreap<K, V> b) {
+        if (a == b) {
+            throw new IllegalArgumentException("can not combine a treap with itself");
+        }
+        Entry<K, V> root = ForkJoinPool.commonPool().invoke(new SetOperationTask<>(op, a.order, a.root, b.root));
+        a.root = null;
+        b.root = null;
+        return new JoinTreap<>(a.order, root);
+    }
+
+    /**
+     * 集合运算的并行任务
+     */
+    private static class SetOperationTask<K, V> extends RecursiveTask<Entry<K, V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int op;
+        private final KeyOrder<K> order;
+        private final Entry<K, V> a;
+        private final Entry<K, V> b;
+
+        SetOperationTask(int op, KeyOrder<K> order, Entry<K, V> a, Entry<K, V> b) {
+            this.op = op;
+            this.order = order;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected Entry<K, V> compute() {
+            return combine(op, order, a, b);
+        }
+    }
+
+    /**
+     * 用两个根节点中优先级更高的那个去 split 另一棵树，对左右两部分递归，
+     * 再根据该 key 是否同时出现在 a、b 中决定如何 join。
+     * 拆分点总是两棵树中优先级最高的节点，也就是结果树的根节点，这样递归的代价才是 O(m log(n/m + 1))。
+     * 规模足够大时左半部分交给其他线程处理
+     */
+    private static <K, V> Entry<K, V> combine(int op, KeyOrder<K> order, Entry<K, V> a, Entry<K, V> b) {
+        if (a == null) {
+            return op == UNION ? b : null;
+        }
+        if (b == null) {
+            return op == INTERSECTION ? null : a;
+        }
+        boolean parallel = a.size + b.size >= PARALLEL_THRESHOLD;
+        boolean pivotInA = a.priority >= b.priority;
+        Entry<K, V> pivot = pivotInA ? a : b;
+        Parts<K, V> parts = new Parts<>();
+        split(pivotInA ? b : a, pivot.key, pivot.hash, order, parts);
+        Entry<K, V> pivotLeft = pivot.left;
+        Entry<K, V> pivotRight = pivot.right;
+        pivot.left = null;
+        pivot.right = null;
+        update(pivot);
+
+        // 运算不对称，需要区分左右两部分以及该 key 对应的节点分别来自哪棵树
+        Entry<K, V> aLeft = pivotInA ? pivotLeft : parts.left;
+        Entry<K, V> aRight = pivotInA ? pivotRight : parts.right;
+        Entry<K, V> bLeft = pivotInA ? parts.left : pivotLeft;
+        Entry<K, V> bRight = pivotInA ? parts.right : pivotRight;
+        Entry<K, V> aMid = pivotInA ? pivot : parts.mid;
+        Entry<K, V> bMid = pivotInA ? parts.mid : pivot;
+
+        Entry<K, V> left;
+        Entry<K, V> right;
+        if (parallel) {
+            SetOperationTask<K, V> leftTask = new SetOperationTask<>(op, order, aLeft, bLeft);
+            leftTask.fork();
+            right = combine(op, order, aRight, bRight);
+            left = leftTask.join();
+        } else {
+            left = combine(op, order, aLeft, bLeft);
+            right = combine(op, order, aRight, bRight);
+        }
+
+        if (op == UNION) {
+            // key 同时存在时保留 b 中的节点，即 b 的值优先
+            return join3(left, bMid != null ? bMid : aMid, right);
+        } else if (op == INTERSECTION) {
+            return aMid != null && bMid != null ? join3(left, aMid, right) : join2(left, right);
+        } else {
+            return aMid != null && bMid == null ? join3(left, aMid, right) : join2(left, right);
+        }
+    }
+
+    /**
+     * 将 t 按 key 拆分，结果写入 out
+     */
+    private static <K, V> void split(Entry<K, V> t, K key, int hash, KeyOrder<K> order, Parts<K, V> out) {
+        if (t == null) {
+            out.left = null;
+            out.mid = null;
+            out.right = null;
+            return;
+        }
+        int cmp = order.compare(key, hash, t.key, t.hash);
+        if (cmp < 0) {
+            split(t.left, key, hash, order, out);
+            t.left = out.right;
+            update(t);
+            out.right = t;
+        } else if (cmp > 0) {
+            split(t.right, key, hash, order, out);
+            t.right = out.left;
+            update(t);
+            out.left = t;
+        } else {
+            out.left = t.left;
+            out.right = t.right;
+            out.mid = t;
+            t.left = null;
+            t.right = null;
+            update(t);
+        }
+    }
+
+    /**
+     * 合并 left、mid、right，优先级最高的节点作为根节点
+     */
+    private static <K, V> Entry<K, V> join3(Entry<K, V> left, Entry<K, V> mid, Entry<K, V> right) {
+        if (mid.priority >= priority(left) && mid.priority >= priority(right)) {
+            mid.left = left;
+            mid.right = right;
+            update(mid);
+            return mid;
+        }
+        if (priority(left) >= priority(right)) {
+            left.right = join3(left.right, mid, right);
+            update(left);
+            return left;
+        } else {
+            right.left = join3(left, mid, right.left);
+            update(right);
+            return right;
+        }
+    }
+
+    /**
+     * 合并 left、right，left 中的 key 均小于 right
+     */
+    private static <K, V> Entry<K, V> join2(Entry<K, V> left, Entry<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            left.right = join2(left.right, right);
+            update(left);
+            return left;
+        } else {
+            right.left = join2(left, right.left);
+            update(right);
+            return right;
+        }
+    }
+
+    private static int priority(Entry<?, ?> node) {
+        return node == null ? Integer.MIN_VALUE : node.priority;
+    }
+
+    private static void update(Entry<?, ?> node) {
+        node.size = sizeOf(node.left) + sizeOf(node.right) + 1;
+    }
+
+    private static int sizeOf(Entry<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    public int size() {
+        return sizeOf(root);
+    }
+
+    public int depth() {
+        return depthRecursive(root);
+    }
+
+    private int depthRecursive(Entry<K, V> root) {
+        if (root == null) {
+            return 0;
+        }
+        return Math.max(depthRecursive(root.left), depthRecursive(root.right)) + 1;
+    }
+
+    public static void main(String[] args) {
+        JoinTreap<String, Integer> map = new JoinTreap<>();
+        map.put("haha", 1532);
+        map.put("hehe", 25432);
+        map.put("test", 3141);
+        map.put("N0tExpectErr0r", 10000);
+        map.put("Test", 10002);
+        map.put("AAA", 12345);
+        map.put("BBB", 14134);
+        map.put("CCC", 131312);
+
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.remove("test");
+        map.remove("BBB");
+        map.remove("ADASD");
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+
+        int n = 1000000;
+        for (int round = 0; round < 3; round++) {
+            JoinTreap<Integer, Integer> a = new JoinTreap<>();
+            JoinTreap<Integer, Integer> b = new JoinTreap<>();
+            RBMap<Integer, Integer> rbA = new RBMap<>();
+            RBMap<Integer, Integer> rbB = new RBMap<>();
+            for (int i = 0; i < n; i++) {
+                a.put(i * 2, i);
+                b.put(i * 3, i);
+                rbA.put(i * 2, i);
+                rbB.put(i * 3, i);
+            }
+
+            long start = System.nanoTime();
+            JoinTreap<Integer, Integer> union = union(a, b);
+            long treapTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                rbA.put(i * 3, rbB.get(i * 3));
+            }
+            long rbTime = System.nanoTime() - start;
+
+            System.out.println("union round " + round + " size:" + union.size()
+                    + " treap:" + treapTime / 1000000 + "ms"
+                    + " rb put loop:" + rbTime / 1000000 + "ms");
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import java.util.Comparator;
+
+/**
+ * 树中 key 的比较方式
+ *
+ * 默认只比较 hashCode，hashCode 相同的 key 被视为同一个 key。
+ * hash 前缀模式下先比较节点中缓存的 hash，只有 hash 相同时才用 Comparator 或 Comparable 决定先后，
+ * 这样大部分层级仍然只需要一次 int 比较，而 hash 冲突的不同 key 也不会互相覆盖
+ */
+final class KeyOrder<K> {
+    private static final KeyOrder<Object> HASH_ONLY = new KeyOrder<>(false, null);
+
+    // hash 相同时是否继续比较 key
+    private final boolean tiebreak;
+    // 为 null 时使用 key 的 Comparable
+    private final Comparator<? super K> comparator;
+
+    private KeyOrder(boolean tiebreak, Comparator<? super K> comparator) {
+        this.tiebreak = tiebreak;
+        this.comparator = comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K> KeyOrder<K> hashOnly() {
+        return (KeyOrder<K>) HASH_ONLY;
+    }
+
+    /**
+     * hash 前缀模式，comparator 为 null 时要求 key 实现 Comparable
+     */
+    static <K> KeyOrder<K> hashPrefixed(Comparator<? super K> comparator) {
+        return new KeyOrder<>(true, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    int compare(K key, int hash, K other, int otherHash) {
+        if (hash != otherHash) {
+            return hash < otherHash ? -1 : 1;
+        }
+        if (!tiebreak || key == other) {
+            return 0;
+        }
+        if (comparator != null) {
+            return comparator.compare(key, other);
+        }
+        return ((Comparable<? super K>) key).compareTo(other);
+    }
+}
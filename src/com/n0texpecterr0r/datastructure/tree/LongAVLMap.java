@@ -0,0 +1,223 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+/**
+ * key 为 long 的 AVL 树 Map
+ *
+ * 与 LongRBMap 一样，直接在节点中保存 long 并按 long 的大小比较，
+ * get、更新已有 key 的 put 以及 remove 都不会分配对象，也不会出现 hashCode 冲突。
+ *
+ * 与 AVLMap 不同，这里的 balance 根据子节点的平衡因子而不是插入的 key 判断失衡的类型，
+ * 因此插入和删除可以共用同一套重平衡逻辑
+ */
+public class LongAVLMap<V> {
+    private Entry<V> root;
+    private int size;
+
+    private static class Entry<V> {
+        long key;
+        V value;
+        int depth;
+        Entry<V> left;
+        Entry<V> right;
+
+        public Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+            this.depth = 1;
+        }
+    }
+
+    public void put(long key, V value) {
+        root = putRecursive(root, key, value);
+    }
+
+    /**
+     * 在root的子树中递归插入节点
+     */
+    private Entry<V> putRecursive(Entry<V> root, long key, V value) {
+        if (root == null) {
+            size++;
+            return new Entry<>(key, value);
+        }
+        if (key < root.key) {
+            root.left = putRecursive(root.left, key, value);
+        } else if (key > root.key) {
+            root.right = putRecursive(root.right, key, value);
+        } else {
+            root.value = value;
+            return root;
+        }
+        return balance(root);
+    }
+
+    public V get(long key) {
+        Entry<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        Entry<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void remove(long key) {
+        root = removeRecursive(root, key);
+    }
+
+    /**
+     * 删除节点，节点有左右子树时用右子树中的最小节点替代它，再从右子树中删除该最小节点
+     */
+    private Entry<V> removeRecursive(Entry<V> root, long key) {
+        if (root == null) {
+            return null;
+        }
+        if (key < root.key) {
+            root.left = removeRecursive(root.left, key);
+        } else if (key > root.key) {
+            root.right = removeRecursive(root.right, key);
+        } else if (root.left == null) {
+            size--;
+            return root.right;
+        } else if (root.right == null) {
+            size--;
+            return root.left;
+        } else {
+            Entry<V> node = root.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            root.key = node.key;
+            root.value = node.value;
+            root.right = removeRecursive(root.right, node.key);
+        }
+        return balance(root);
+    }
+
+    /**
+     * 重新计算深度并平衡，四种失衡情况与 AVLMap 相同：
+     * 左边更深时，若左子节点的右子树更深（情况2）先对左子节点左旋，再对根节点右旋；
+     * 右边更深时镜像处理
+     */
+    private Entry<V> balance(Entry<V> root) {
+        caculateDepth(root);
+        int balanceFactor = depth(root.left) - depth(root.right);
+        if (balanceFactor > 1) {
+            if (depth(root.left.left) < depth(root.left.right)) {
+                root.left = leftRotate(root.left);
+            }
+            return rightRotate(root);
+        }
+        if (balanceFactor < -1) {
+            if (depth(root.right.right) < depth(root.right.left)) {
+                root.right = rightRotate(root.right);
+            }
+            return leftRotate(root);
+        }
+        return root;
+    }
+
+    /**
+     * 左旋，原root的right变为新root
+     * 新root的left变为原root的right
+     */
+    private Entry<V> leftRotate(Entry<V> root) {
+        Entry<V> newRoot = root.right;
+        root.right = newRoot.left;
+        newRoot.left = root;
+        caculateDepth(root);
+        caculateDepth(newRoot);
+        return newRoot;
+    }
+
+    /**
+     * 右旋，原root的left变为新root
+     * 新root的right变为原root的left
+     */
+    private Entry<V> rightRotate(Entry<V> root) {
+        Entry<V> newRoot = root.left;
+        root.left = newRoot.right;
+        newRoot.right = root;
+        caculateDepth(root);
+        caculateDepth(newRoot);
+        return newRoot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth() {
+        return depth(root);
+    }
+
+    private void caculateDepth(Entry<V> root) {
+        root.depth = Math.max(depth(root.left), depth(root.right)) + 1;
+    }
+
+    private int depth(Entry<V> root) {
+        return root == null ? 0 : root.depth;
+    }
+
+    public static void main(String[] args) {
+        LongAVLMap<String> map = new LongAVLMap<>();
+        // 这两个 key 的 Long.hashCode() 相同，在 AVLMap<Long, V> 中会互相覆盖
+        map.put(1L, "one");
+        map.put(1L << 32, "collide");
+        map.put(1700000000000L, "timestamp");
+        map.put(-5L, "negative");
+
+        System.out.println(map.get(1L) + " " + map.get(1L << 32) + " " + map.get(-5L));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.remove(-5L);
+        map.remove(42L);
+        System.out.println("size:" + map.size());
+
+        int n = 1000000;
+        long base = 1700000000000L;
+        for (int round = 0; round < 3; round++) {
+            LongAVLMap<Integer> primitive = new LongAVLMap<>();
+            AVLMap<Long, Integer> boxed = new AVLMap<>(true);
+            Integer value = 1;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                primitive.put(base + i * 7L, value);
+            }
+            for (int i = 0; i < n; i++) {
+                primitive.get(base + i * 7L);
+            }
+            long primitiveTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                boxed.put(base + i * 7L, value);
+            }
+            for (int i = 0; i < n; i++) {
+                boxed.get(base + i * 7L);
+            }
+            long boxedTime = System.nanoTime() - start;
+
+            System.out.println("long round " + round + " primitive:" + primitiveTime / 1000000 + "ms"
+                    + " boxed:" + boxedTime / 1000000 + "ms size:" + primitive.size() + "/" + boxed.size());
+        }
+    }
+}
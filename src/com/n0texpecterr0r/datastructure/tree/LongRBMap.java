@@ -0,0 +1,420 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+/**
+ * key 为 long 的红黑树 Map
+ *
+ * RBMap<Long, V> 每次 put 都需要装箱一个 Long，每一层比较都要调用 Long.hashCode()，
+ * 而 Long.hashCode() 会把 64 位折叠为 32 位，不同的 key 可能冲突，且大于 int 范围的 key 顺序也是乱的。
+ * 这里直接在节点中保存 long，按 long 的大小比较，get、更新已有 key 的 put 以及 remove 都不会分配对象。
+ * 插入、删除及重整的逻辑与 RBMap 完全相同
+ */
+public class LongRBMap<V> {
+    public static final boolean RED = true;
+    public static final boolean BLACK = false;
+
+    private Entry<V> root;
+    private int size;
+
+    private static class Entry<V> {
+        long key;
+        V value;
+        boolean color;
+        Entry<V> left;
+        Entry<V> right;
+        Entry<V> parent;
+
+        public Entry(long key, V value, Entry<V> parent) {
+            this.key = key;
+            this.value = value;
+            this.parent = parent;
+            this.color = RED;
+        }
+    }
+
+    public void put(long key, V value) {
+        Entry<V> parent = null;
+        Entry<V> node = root;
+
+        // 寻找插入位置
+        while (node != null) {
+            parent = node;
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                // 找到对应位置，直接替换值，不需要再进行重整
+                node.value = value;
+                return;
+            }
+        }
+
+        // 插入节点
+        Entry<V> toInsert = new Entry<>(key, value, parent);
+        if (parent == null) {
+            this.root = toInsert;
+        } else if (key < parent.key) {
+            parent.left = toInsert;
+        } else {
+            parent.right = toInsert;
+        }
+        size++;
+        fixupAfterPut(toInsert);
+    }
+
+    /**
+     * 插入后重整红黑树，情况划分见 RBMap
+     */
+    private void fixupAfterPut(Entry<V> node) {
+        while (node != null && node != root && colorOf(parentOf(node)) == RED) {
+            // 祖父节点不可能为 null（否则parent不可能为红色）
+            if (parentOf(node) == leftOf(parentOf(parentOf(node)))) {
+                // 左侧插入
+                Entry<V> uncle = rightOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    // 叔叔也是红色，变色
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == rightOf(parentOf(node))) {
+                        // 情况4，需要左旋
+                        node = parentOf(node);
+                        leftRotate(node);
+                    }
+                    // 情况5，互换父节点与祖父节点的颜色，并对祖父节点进行右旋
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    rightRotate(parentOf(parentOf(node)));
+                }
+            } else {
+                // 右侧插入
+                Entry<V> uncle = leftOf(parentOf(parentOf(node)));
+                if (colorOf(uncle) == RED) {
+                    // 叔叔也是红色，变色
+                    setColor(parentOf(node), BLACK);
+                    setColor(uncle, BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    node = parentOf(parentOf(node));
+                } else {
+                    if (node == leftOf(parentOf(node))) {
+                        // 情况4，需要右旋
+                        node = parentOf(node);
+                        rightRotate(node);
+                    }
+                    // 情况5，互换父节点与祖父节点的颜色，并对祖父节点进行左旋
+                    setColor(parentOf(node), BLACK);
+                    setColor(parentOf(parentOf(node)), RED);
+                    leftRotate(parentOf(parentOf(node)));
+                }
+            }
+        }
+        // 每次都重新将 root 置为黑色
+        setColor(root, BLACK);
+    }
+
+    public V get(long key) {
+        Entry<V> node = findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(long key) {
+        return findNode(key) != null;
+    }
+
+    private Entry<V> findNode(long key) {
+        Entry<V> node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    public void remove(long key) {
+        Entry<V> node = findNode(key);
+        if (node != null) {
+            deleteNode(node);
+            size--;
+        }
+    }
+
+    /**
+     * 与BST的删除比较像，只是需要注意，若删除的节点是黑色，需要进行重整
+     */
+    private void deleteNode(Entry<V> node) {
+        if (node.left != null && node.right != null) {
+            // 左右子节点均不为null，则需要找到子树中比它大的最小值或比它小的最大值
+            Entry<V> leftNode = node.right;
+            while (leftNode.left != null) {
+                leftNode = leftNode.left;
+            }
+            // 将该节点的值复制过来，并删除该节点
+            node.key = leftNode.key;
+            node.value = leftNode.value;
+            node = leftNode;
+        }
+
+        Entry<V> replace = node.left != null ? node.left : node.right;
+        // 此时子节点一定有一个为 null，用不为 null 的子节点来替代
+        if (replace != null) {
+            replace.parent = node.parent;
+            if (node.parent == null) {
+                // 如果删除的节点是根节点，用replace替代
+                root = replace;
+            } else if (node == node.parent.left) {
+                // 替换 parent 左节点
+                node.parent.left = replace;
+            } else {
+                // 替换 parent 右节点
+                node.parent.right = replace;
+            }
+            node.left = null;
+            node.right = null;
+            node.parent = null;
+            if (node.color == BLACK) {
+                // 如果删除了黑色节点，需要重整
+                fixupAfterRemove(replace);
+            }
+        } else if (node.parent == null) {
+            // 删除的是根节点，则用null替代
+            root = null;
+        } else {
+            // 删除的节点没有子节点，并且该节点不是根节点
+            if (node.color == BLACK) {
+                // 如果删除的是黑色节点，需要先进行重整
+                fixupAfterRemove(node);
+            }
+            // 从父节点中删除
+            if (node.parent != null) {
+                if (node == node.parent.left) {
+                    node.parent.left = null;
+                } else if (node == node.parent.right) {
+                    node.parent.right = null;
+                }
+                node.parent = null;
+            }
+        }
+    }
+
+    /**
+     * 删除后若删除的节点是黑节点，会影响平衡，进行重整，情况划分见 RBMap
+     */
+    private void fixupAfterRemove(Entry<V> node) {
+        while (node != root && colorOf(node) == BLACK) {
+            if (node == leftOf(parentOf(node))) {
+                Entry<V> bro = rightOf(parentOf(node));
+                if (colorOf(bro) == RED) {
+                    // 情况2（bro为红色），结束后会变为4、5、6中一种
+                    // （4、5、6中bro均为黑色）
+                    setColor(bro, BLACK);
+                    setColor(parentOf(node), RED);
+                    leftRotate(parentOf(node));
+                    bro = rightOf(parentOf(node));
+                }
+
+                if (colorOf(leftOf(bro)) == BLACK
+                        && colorOf(rightOf(bro)) == BLACK) {
+                    // 情况3、4（重新对父节点平衡处理）
+                    // 此处对于情况4来说，虽然只是设置了兄弟节点为红色，
+                    // 但下一轮循环时，由于父节点往上均是满足条件的，因此父节点在最后会被设置为黑色
+                    setColor(bro, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(rightOf(bro)) == BLACK) {
+                        // 情况5（说明bro的左红右黑），结束后会变为情况6
+                        setColor(leftOf(bro), BLACK);
+                        setColor(bro, RED);
+                        rightRotate(bro);
+                        bro = rightOf(parentOf(node));
+                    }
+                    // 情况6（说明bro右红），左旋，并且交换父节点与兄弟节点颜色
+                    setColor(bro, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);    // 兄弟节点一定是黑色（否则已经不满足红黑树条件）
+                    setColor(rightOf(bro), BLACK);      // 将兄弟节点右子节点置为黑色
+                    leftRotate(parentOf(node));
+                    node = root;
+                }
+            } else {
+                Entry<V> bro = leftOf(parentOf(node));
+                if (colorOf(bro) == RED) {
+                    // 情况2
+                    setColor(bro, BLACK);
+                    setColor(parentOf(node), RED);
+                    rightRotate(parentOf(node));
+                    bro = leftOf(parentOf(node));
+                }
+
+                if (colorOf(leftOf(bro)) == BLACK
+                        && colorOf(rightOf(bro)) == BLACK) {
+                    // 情况3、4
+                    setColor(bro, RED);
+                    node = parentOf(node);
+                } else {
+                    if (colorOf(leftOf(bro)) == BLACK) {
+                        // 情况5
+                        setColor(rightOf(bro), BLACK);
+                        setColor(bro, RED);
+                        leftRotate(bro);
+                        bro = leftOf(parentOf(node));
+                    }
+                    // 情况6
+                    setColor(bro, colorOf(parentOf(node)));
+                    setColor(parentOf(node), BLACK);
+                    setColor(leftOf(bro), BLACK);
+                    rightRotate(parentOf(node));
+                    node = root;
+                }
+            }
+        }
+        setColor(node, BLACK);
+    }
+
+    /**
+     * 最小的 key，Map 为空时抛出 IllegalStateException
+     */
+    public long firstKey() {
+        if (root == null) {
+            throw new IllegalStateException("map is empty");
+        }
+        Entry<V> node = root;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth() {
+        return depthRecursive(root);
+    }
+
+    private int depthRecursive(Entry<V> root) {
+        if (root == null) {
+            return 0;
+        }
+        return Math.max(depthRecursive(root.left), depthRecursive(root.right)) + 1;
+    }
+
+    private void setColor(Entry<V> node, boolean color) {
+        if (node != null) {
+            node.color = color;
+        }
+    }
+
+    private boolean colorOf(Entry<V> node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private Entry<V> parentOf(Entry<V> node) {
+        return node == null ? null : node.parent;
+    }
+
+    private Entry<V> leftOf(Entry<V> node) {
+        return node == null ? null : node.left;
+    }
+
+    private Entry<V> rightOf(Entry<V> node) {
+        return node == null ? null : node.right;
+    }
+
+    /**
+     * 左旋操作，将新root的left给旧root的right，旧root变为新root的left
+     */
+    private void leftRotate(Entry<V> root) {
+        Entry<V> newRoot = root.right;
+        root.right = newRoot.left;
+
+        if (newRoot.left != null) {
+            newRoot.left.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.left = root;
+        root.parent = newRoot;
+    }
+
+    /**
+     * 右旋操作，将新root的right给旧root的left，旧root变为新root的right
+     */
+    private void rightRotate(Entry<V> root) {
+        Entry<V> newRoot = root.left;
+        root.left = newRoot.right;
+
+        if (newRoot.right != null) {
+            newRoot.right.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.right = root;
+        root.parent = newRoot;
+    }
+
+    public static void main(String[] args) {
+        LongRBMap<String> map = new LongRBMap<>();
+        // 这两个 key 的 Long.hashCode() 相同，在 RBMap<Long, V> 中会互相覆盖
+        map.put(1L, "one");
+        map.put(1L << 32, "collide");
+        map.put(1700000000000L, "timestamp");
+        map.put(-5L, "negative");
+
+        System.out.println(map.get(1L) + " " + map.get(1L << 32) + " " + map.get(-5L));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.remove(-5L);
+        map.remove(42L);
+        System.out.println("size:" + map.size());
+
+        int n = 1000000;
+        long base = 1700000000000L;
+        for (int round = 0; round < 3; round++) {
+            LongRBMap<Integer> primitive = new LongRBMap<>();
+            RBMap<Long, Integer> boxed = new RBMap<>(true);
+            Integer value = 1;
+
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                primitive.put(base + i * 7L, value);
+            }
+            for (int i = 0; i < n; i++) {
+                primitive.get(base + i * 7L);
+            }
+            long primitiveTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                boxed.put(base + i * 7L, value);
+            }
+            for (int i = 0; i < n; i++) {
+                boxed.get(base + i * 7L);
+            }
+            long boxedTime = System.nanoTime() - start;
+
+            System.out.println("long round " + round + " primitive:" + primitiveTime / 1000000 + "ms"
+                    + " boxed:" + boxedTime / 1000000 + "ms size:" + primitive.size() + "/" + boxed.size());
+        }
+    }
+}
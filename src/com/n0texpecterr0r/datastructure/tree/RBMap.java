@@ -1,5 +1,10 @@
 package com.n0texpecterr0r.datastructure.tree;
 
+import com.n0texpecterr0r.datastructure.stats.StructureStats;
+
+import java.util.Comparator;
+import java.util.function.BiConsumer;
+
 /**
  * 红黑树实现的Map
  *
@@ -14,53 +19,141 @@ public class RBMap<K, V> {
     public static final boolean RED = true;
     public static final boolean BLACK = false;
 
+    private final KeyOrder<K> order;
     private Entry<K, V> root;
     private int size;
 
+    // finger 模式：记录上一次 get 访问到的节点，下一次查找从它出发
+    private boolean fingerEnabled;
+    private Entry<K, V> finger;
+    private long fingerLookups;
+    private long fingerHits;
+
     private static class Entry<K, V> {
         K key;
+        int hash;
         V value;
         boolean color;
         Entry<K, V> left;
         Entry<K, V> right;
         Entry<K, V> parent;
 
-        public Entry(K key, V value, Entry<K, V> parent) {
+        public Entry(K key, int hash, V value, Entry<K, V> parent) {
             this.key = key;
+            this.hash = hash;
             this.value = value;
             this.parent = parent;
             this.color = RED;
         }
     }
 
+    /**
+     * 只比较 hashCode，hashCode 相同的 key 视为同一个 key
+     */
+    public RBMap() {
+        this.order = KeyOrder.hashOnly();
+    }
+
+    /**
+     * hashPrefixed 为 true 时先比较 hash，hash 相同再用 key 的 Comparable 比较
+     */
+    public RBMap(boolean hashPrefixed) {
+        this.order = hashPrefixed ? KeyOrder.<K>hashPrefixed(null) : KeyOrder.<K>hashOnly();
+    }
+
+    /**
+     * 先比较 hash，hash 相同再用 comparator 比较
+     */
+    public RBMap(Comparator<? super K> comparator) {
+        this.order = KeyOrder.hashPrefixed(comparator);
+    }
+
     /**
      * 插入逻辑与 BST 基本相同，只是需要在插入结束后对红黑树进行重整
      */
     public void put(K key, V value) {
+        putFrom(root, key, key.hashCode(), value);
+    }
+
+    /**
+     * 批量插入一组按树中 key 的顺序升序排好的 key
+     * 每次插入不再从 root 开始查找，而是从上一次插入的节点 last 出发，
+     * 沿 parent 向上走到一定能包含 key 的最低祖先，再从该祖先向下寻找插入位置。
+     * 对于有序的批量数据，相邻两次插入的位置很近，向上及向下的路径长度只与两者之间的距离有关，
+     * 因此 k 个 key 插入大小为 n 的树的总代价接近 O(k log(n/k))，而不是 O(k log n)
+     *
+     * 重整仍然在每次插入后进行：红黑树插入的重整均摊只需要 O(1) 次旋转，
+     * 并且旋转会维护好 parent 指针，重整后 last 依然在树中，可以继续使用。
+     * 这里的 last 只是批量插入内部的局部变量，与 get 使用的 finger 无关，不会移动 finger。
+     * keys 并非有序时结果依然正确，只是会退化为普通的 put
+     */
+    public void putAll(K[] keys, V[] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys length: " + keys.length + " values length: " + values.length);
+        }
+        Entry<K, V> last = root;
+        for (int i = 0; i < keys.length; i++) {
+            int hash = keys[i].hashCode();
+            last = putFrom(climb(last, keys[i], hash), keys[i], hash, values[i]);
+        }
+    }
+
+    /**
+     * 从 node 开始沿 parent 向上，寻找子树范围一定包含 key 的最低祖先
+     * 若 node 是 parent 的左子节点，node 子树中的 key 均小于 parent，
+     * 此时若 key 位于 node 与 parent 之间，key 必定落在 node 的子树中（右子节点同理）
+     */
+    private Entry<K, V> climb(Entry<K, V> node, K key, int hash) {
+        if (node == null) {
+            return root;
+        }
+        while (node.parent != null) {
+            int toNode = compare(key, hash, node);
+            if (toNode == 0) {
+                return node;
+            }
+            Entry<K, V> parent = node.parent;
+            int toParent = compare(key, hash, parent);
+            if (node == parent.left ? toNode > 0 && toParent < 0
+                    : toNode < 0 && toParent > 0) {
+                return node;
+            }
+            node = parent;
+        }
+        return node;
+    }
+
+    /**
+     * 从 start 节点开始向下寻找插入位置并插入，返回 key 所在的节点
+     * start 为 null 说明树为空
+     */
+    private Entry<K, V> putFrom(Entry<K, V> start, K key, int hash, V value) {
         Entry<K, V> parent = null;
-        Entry<K, V> node = root;
+        Entry<K, V> node = start;
+        int cmp = 0;
 
         // 寻找插入位置
         while (node != null) {
             parent = node;
-            if (key.hashCode() < node.key.hashCode()) {
+            cmp = compare(key, hash, node);
+            if (cmp < 0) {
                 node = node.left;
-            } else if (key.hashCode() > node.key.hashCode()){
+            } else if (cmp > 0){
                 node = node.right;
             } else {
                 // 找到对应位置，直接替换值，不需要再进行重整
                 node.value = value;
-                return;
+                return node;
             }
         }
 
         // 插入节点
-        Entry<K, V> toInsert = new Entry<>(key, value, parent);
+        Entry<K, V> toInsert = new Entry<>(key, hash, value, parent);
         if (parent == null) {
             // 说明还没有根节点，插入根节点
             this.root = toInsert;
             size++;
-        } else if (key.hashCode() < parent.key.hashCode()) {
+        } else if (cmp < 0) {
             // 应当插入到parent左侧
             parent.left = toInsert;
             size++;
@@ -70,6 +163,7 @@ public class RBMap<K, V> {
             size++;
         }
         fixupAfterPut(toInsert);
+        return toInsert;
     }
 
     /**
@@ -148,29 +242,94 @@ public class RBMap<K, V> {
      * 查询操作，与BST及AVL相同
      */
     public V get(K key) {
-        Entry<K, V> node = findNode(root, key);
+        int hash = key.hashCode();
+        Entry<K, V> node = fingerEnabled ? findNodeFromFinger(key, hash) : findNode(root, key, hash);
         return node == null ? null : node.value;
     }
 
+    /**
+     * 开启或关闭 finger 模式
+     * 开启后 get 会从上一次访问的节点出发，先沿 parent 向上找到一定包含 key 的最低祖先，再向下查找。
+     * 对于顺序扫描或者反复访问附近 key 的场景，查找代价为 O(log d)，d 为两次访问的 key 之间的排名距离
+     */
+    public void setFingerEnabled(boolean enabled) {
+        this.fingerEnabled = enabled;
+        this.finger = null;
+    }
+
+    /**
+     * finger 模式下的查找
+     * climb 只依赖于当前的 left、right、parent 指针，而旋转会同时维护好这些指针，
+     * 因此旋转后 finger 仍然可以直接使用，只有删除会使 finger 脱离这棵树，需要在删除时置空
+     */
+    private Entry<K, V> findNodeFromFinger(K key, int hash) {
+        fingerLookups++;
+        Entry<K, V> node = climb(finger, key, hash);
+        if (node != null && node.parent != null) {
+            // 没有回到 root 就确定了范围，视为命中
+            fingerHits++;
+        }
+        Entry<K, V> last = node;
+        while (node != null) {
+            last = node;
+            int cmp = compare(key, hash, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                break;
+            }
+        }
+        // 找不到时记录查找路径上的最后一个节点，它与 key 的排名同样相邻
+        finger = node != null ? node : last;
+        return node;
+    }
+
+    public long fingerLookups() {
+        return fingerLookups;
+    }
+
+    public long fingerHits() {
+        return fingerHits;
+    }
+
+    /**
+     * finger 命中率，即不需要回到 root 就完成查找的比例
+     */
+    public double fingerHitRate() {
+        return fingerLookups == 0 ? 0 : (double) fingerHits / fingerLookups;
+    }
+
     /**
      * 递归在root的子树中寻找key对应的value
      */
-    private Entry<K, V> findNode(Entry<K, V> root, K key) {
+    private Entry<K, V> findNode(Entry<K, V> root, K key, int hash) {
         if (root == null) {
             return null;
         }
-        if (key.hashCode() < root.key.hashCode()) {
-            return findNode(root.left, key);
-        } else if (key.hashCode() > root.key.hashCode()){
-            return findNode(root.right, key);
+        int cmp = compare(key, hash, root);
+        if (cmp < 0) {
+            return findNode(root.left, key, hash);
+        } else if (cmp > 0){
+            return findNode(root.right, key, hash);
         } else {
             return root;
         }
     }
 
+    /**
+     * 比较 key 与节点中的 key，hash 由调用方计算好，节点的 hash 已缓存在节点中
+     */
+    private int compare(K key, int hash, Entry<K, V> node) {
+        return order.compare(key, hash, node.key, node.hash);
+    }
+
     public void remove(K key) {
-        Entry<K, V> node = findNode(root, key);
+        Entry<K, V> node = findNode(root, key, key.hashCode());
         if (node != null) {
+            // 删除可能会把 finger 所在的节点从树中摘除
+            finger = null;
             deleteNode(node);
             size--;
         }
@@ -188,6 +347,7 @@ public class RBMap<K, V> {
             }
             // 将该节点的值复制过来，并删除该节点
             node.key = leftNode.key;
+            node.hash = leftNode.hash;
             node.value = leftNode.value;
             node = leftNode;
         }
@@ -262,7 +422,7 @@ public class RBMap<K, V> {
      *    而对于原兄弟节点的右子节点，只需将其变为黑色即可恢复原经过兄弟节点的路径的黑色数目。）
      */
     private void fixupAfterRemove(Entry<K, V> node) {
-        while (node != root && colorOf(node) != BLACK) {
+        while (node != root && colorOf(node) == BLACK) {
             if (node == leftOf(parentOf(node))) {
                 Entry<K, V> bro = rightOf(parentOf(node));
                 if (colorOf(bro) == RED) {
@@ -335,10 +495,76 @@ public class RBMap<K, V> {
         return size;
     }
 
+    /**
+     * 生成包含当前所有元素的只读 FrozenMap，之后对本 Map 的修改不会影响它
+     */
+    public FrozenMap<K, V> freeze() {
+        int[] hashes = new int[size];
+        Object[] keys = new Object[size];
+        Object[] values = new Object[size];
+        collect(root, hashes, keys, values, 0);
+        return new FrozenMap<>(order, size, hashes, keys, values);
+    }
+
+    /**
+     * 中序遍历，将元素按顺序放入数组，返回下一个要放入的下标
+     */
+    private int collect(Entry<K, V> root, int[] hashes, Object[] keys, Object[] values, int index) {
+        if (root == null) {
+            return index;
+        }
+        index = collect(root.left, hashes, keys, values, index);
+        hashes[index] = root.hash;
+        keys[index] = root.key;
+        values[index] = root.value;
+        return collect(root.right, hashes, keys, values, index + 1);
+    }
+
+    /**
+     * 按 key 的顺序遍历所有的 key 和 value
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEachRecursive(root, action);
+    }
+
+    private void forEachRecursive(Entry<K, V> root, BiConsumer<? super K, ? super V> action) {
+        if (root == null) {
+            return;
+        }
+        forEachRecursive(root.left, action);
+        action.accept(root.key, root.value);
+        forEachRecursive(root.right, action);
+    }
+
     public int depth() {
         return depthRecursive(root);
     }
 
+    /**
+     * 黑高，即任意一条从根节点到叶子的路径上黑色节点的个数，只需沿最左侧路径数一遍，O(log n)
+     */
+    public int blackHeight() {
+        int blackHeight = 0;
+        for (Entry<K, V> node = root; node != null; node = node.left) {
+            if (node.color == BLACK) {
+                blackHeight++;
+            }
+        }
+        return blackHeight;
+    }
+
+    /**
+     * 内存占用与形状，O(log n)
+     * 精确的高度需要 depth() 遍历整棵树，这里给出由黑高得到的上界：
+     * 红色节点的子节点都是黑色，路径上红色节点不会多于黑色节点，因此高度不超过黑高的两倍
+     */
+    public StructureStats stats() {
+        int blackHeight = blackHeight();
+        long bytes = StructureStats.objectBytes(3 * StructureStats.REFERENCE + 4 + 1 + 8 + 8)
+                + size * StructureStats.objectBytes(5 * StructureStats.REFERENCE + 4 + 1);
+        return new StructureStats(bytes, 0, size, 2 * blackHeight, false, blackHeight);
+    }
+
     private int depthRecursive(Entry<K, V> root) {
         if (root == null) {
             return 0;
@@ -434,5 +660,96 @@ public class RBMap<K, V> {
         System.out.println(map.get("hehe"));
         System.out.println("size:" + map.size());
         System.out.println("depth:" + map.depth());
+
+        Integer[] keys = new Integer[10000];
+        Integer[] values = new Integer[10000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i * 2;
+            values[i] = i;
+        }
+        RBMap<Integer, Integer> batch = new RBMap<>();
+        batch.putAll(keys, values);
+        System.out.println("putAll size:" + batch.size() + " depth:" + batch.depth() + " get(5000):" + batch.get(5000));
+        System.out.println(batch.stats());
+
+        batch.setFingerEnabled(true);
+        for (int i = 0; i < 20000; i++) {
+            batch.get(i);
+        }
+        System.out.println("finger hit rate:" + batch.fingerHitRate());
+
+        // "Aa" 与 "BB" 的 hashCode 相同，只比较 hash 时后者会覆盖前者
+        RBMap<String, Integer> hashOnly = new RBMap<>();
+        RBMap<String, Integer> hashPrefixed = new RBMap<>(true);
+        hashOnly.put("Aa", 1);
+        hashOnly.put("BB", 2);
+        hashPrefixed.put("Aa", 1);
+        hashPrefixed.put("BB", 2);
+        System.out.println("hash only Aa:" + hashOnly.get("Aa") + " size:" + hashOnly.size());
+        System.out.println("hash prefixed Aa:" + hashPrefixed.get("Aa") + " size:" + hashPrefixed.size());
+
+        // 删除大部分节点后，树高仍应不超过红黑树的上界 2log(n+1)
+        RBMap<Integer, Integer> shrink = new RBMap<>();
+        for (int i = 0; i < 100000; i++) {
+            shrink.put(i, i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            if (i % 64 != 0) {
+                shrink.remove(i);
+            }
+        }
+        System.out.println("after removes size:" + shrink.size() + " depth:" + shrink.depth()
+                + " bound:" + (int) (2 * Math.log(shrink.size() + 1) / Math.log(2)));
+
+        stringBenchmark();
+    }
+
+    /**
+     * 长 String key 下比较只比较 hash、hash 前缀以及 java.util.TreeMap 完全使用 compareTo 的耗时
+     */
+    private static void stringBenchmark() {
+        int n = 200000;
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            // 共享较长前缀的 key，compareTo 需要逐字符比较到末尾
+            keys[i] = "tenant/0001/region/ap-east/service/order/session/" + Integer.toHexString(i * 31 + 7);
+        }
+        for (int round = 0; round < 3; round++) {
+            RBMap<String, Integer> hashOnly = new RBMap<>();
+            RBMap<String, Integer> hashPrefixed = new RBMap<>(true);
+            java.util.TreeMap<String, Integer> compareOnly = new java.util.TreeMap<>();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                hashOnly.put(keys[i], i);
+            }
+            for (int i = 0; i < n; i++) {
+                hashOnly.get(keys[i]);
+            }
+            long hashOnlyTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                hashPrefixed.put(keys[i], i);
+            }
+            for (int i = 0; i < n; i++) {
+                hashPrefixed.get(keys[i]);
+            }
+            long hashPrefixedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                compareOnly.put(keys[i], i);
+            }
+            for (int i = 0; i < n; i++) {
+                compareOnly.get(keys[i]);
+            }
+            long compareOnlyTime = System.nanoTime() - start;
+
+            System.out.println("string round " + round
+                    + " hash only:" + hashOnlyTime / 1000000 + "ms size:" + hashOnly.size()
+                    + " hash prefixed:" + hashPrefixedTime / 1000000 + "ms size:" + hashPrefixed.size()
+                    + " compareTo:" + compareOnlyTime / 1000000 + "ms size:" + compareOnly.size());
+        }
     }
 }
@@ -0,0 +1,407 @@
+package com.n0texpecterr0r.datastructure.tree;
+
+import java.util.Comparator;
+import java.util.Random;
+
+/**
+ * 伸展树实现的Map
+ *
+ * 伸展树不维护任何平衡信息，而是在每次访问后通过旋转把被访问的节点移动到根节点（伸展）。
+ * 单次操作最坏为 O(n)，但均摊为 O(log n)，并且访问越频繁的 key 离根节点越近，
+ * 对于访问分布非常倾斜（如 Zipf 分布）的场景，热点 key 几乎都能在根节点附近找到。
+ *
+ * 伸展有以下三种情况（x 为被访问节点，p 为父节点，g 为祖父节点）
+ * 1. zig：p 为根节点，对 x 进行一次旋转
+ * 2. zig-zig：x、p、g 在同一条线上，先旋转 p，再旋转 x
+ * 3. zig-zag：x、p、g 不在同一条线上，对 x 连续旋转两次
+ *
+ * 读多写少时，每次 get 都进行完整伸展会带来大量的指针写入，
+ * 因此提供了半伸展（semi-splay）模式（见 setSemiSplay）：zig-zig 时只旋转 p，之后从 p 继续向上，
+ * 被访问节点每轮只上升到大约一半的深度，旋转次数减少一半，但仍然能保持均摊 O(log n)
+ */
+public class SplayMap<K, V> {
+    private final KeyOrder<K> order;
+    private Entry<K, V> root;
+    private int size;
+    // get 时是否只进行半伸展
+    private boolean semiSplay;
+
+    private static class Entry<K, V> {
+        K key;
+        int hash;
+        V value;
+        Entry<K, V> left;
+        Entry<K, V> right;
+        Entry<K, V> parent;
+
+        public Entry(K key, int hash, V value, Entry<K, V> parent) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * 只比较 hashCode，hashCode 相同的 key 视为同一个 key
+     */
+    public SplayMap() {
+        this.order = KeyOrder.hashOnly();
+    }
+
+    /**
+     * hashPrefixed 为 true 时先比较 hash，hash 相同再用 key 的 Comparable 比较
+     */
+    public SplayMap(boolean hashPrefixed) {
+        this.order = hashPrefixed ? KeyOrder.<K>hashPrefixed(null) : KeyOrder.<K>hashOnly();
+    }
+
+    /**
+     * 先比较 hash，hash 相同再用 comparator 比较
+     */
+    public SplayMap(Comparator<? super K> comparator) {
+        this.order = KeyOrder.hashPrefixed(comparator);
+    }
+
+    /**
+     * semiSplay 为 true 时 get 只进行半伸展，put 与 remove 始终完整伸展，默认为 false
+     */
+    public void setSemiSplay(boolean semiSplay) {
+        this.semiSplay = semiSplay;
+    }
+
+    /**
+     * 插入逻辑与 BST 相同，插入或更新后将该节点伸展到根节点
+     */
+    public void put(K key, V value) {
+        int hash = key.hashCode();
+        Entry<K, V> parent = null;
+        Entry<K, V> node = root;
+        int cmp = 0;
+        while (node != null) {
+            parent = node;
+            cmp = compare(key, hash, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                node.value = value;
+                splay(node);
+                return;
+            }
+        }
+
+        Entry<K, V> toInsert = new Entry<>(key, hash, value, parent);
+        if (parent == null) {
+            root = toInsert;
+        } else if (cmp < 0) {
+            parent.left = toInsert;
+        } else {
+            parent.right = toInsert;
+        }
+        size++;
+        splay(toInsert);
+    }
+
+    /**
+     * 查询后将找到的节点伸展到根节点，找不到时伸展查找路径上的最后一个节点
+     */
+    public V get(K key) {
+        int hash = key.hashCode();
+        Entry<K, V> node = findNode(key, hash);
+        if (node == null) {
+            return null;
+        }
+        if (semiSplay) {
+            semiSplay(node);
+        } else {
+            splay(node);
+        }
+        return compare(key, hash, node) == 0 ? node.value : null;
+    }
+
+    /**
+     * 先将要删除的节点伸展到根节点，此时只需要合并它的左右子树：
+     * 将左子树中的最大节点伸展为左子树的根，它一定没有右子节点，把右子树接到它的右侧即可
+     */
+    public void remove(K key) {
+        int hash = key.hashCode();
+        Entry<K, V> node = findNode(key, hash);
+        if (node == null) {
+            return;
+        }
+        splay(node);
+        if (compare(key, hash, node) != 0) {
+            return;
+        }
+
+        Entry<K, V> left = node.left;
+        Entry<K, V> right = node.right;
+        node.left = null;
+        node.right = null;
+        if (left == null) {
+            root = right;
+            if (right != null) {
+                right.parent = null;
+            }
+        } else {
+            left.parent = null;
+            root = left;
+            Entry<K, V> max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            splay(max);
+            max.right = right;
+            if (right != null) {
+                right.parent = max;
+            }
+        }
+        size--;
+    }
+
+    /**
+     * 寻找 key 对应的节点，找不到时返回查找路径上的最后一个节点
+     */
+    private Entry<K, V> findNode(K key, int hash) {
+        Entry<K, V> last = null;
+        Entry<K, V> node = root;
+        while (node != null) {
+            last = node;
+            int cmp = compare(key, hash, node);
+            if (cmp < 0) {
+                node = node.left;
+            } else if (cmp > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return last;
+    }
+
+    /**
+     * 比较 key 与节点中的 key，节点的 hash 已缓存在节点中
+     */
+    private int compare(K key, int hash, Entry<K, V> node) {
+        return order.compare(key, hash, node.key, node.hash);
+    }
+
+    /**
+     * 将 node 伸展到根节点
+     */
+    private void splay(Entry<K, V> node) {
+        while (node.parent != null) {
+            Entry<K, V> parent = node.parent;
+            Entry<K, V> grand = parent.parent;
+            if (grand == null) {
+                // zig
+                rotateUp(node);
+            } else if ((node == parent.left) == (parent == grand.left)) {
+                // zig-zig
+                rotateUp(parent);
+                rotateUp(node);
+            } else {
+                // zig-zag
+                rotateUp(node);
+                rotateUp(node);
+            }
+        }
+    }
+
+    /**
+     * 半伸展，zig-zig 时只旋转父节点，之后从父节点继续向上
+     */
+    private void semiSplay(Entry<K, V> node) {
+        while (node.parent != null) {
+            Entry<K, V> parent = node.parent;
+            Entry<K, V> grand = parent.parent;
+            if (grand == null) {
+                rotateUp(node);
+            } else if ((node == parent.left) == (parent == grand.left)) {
+                rotateUp(parent);
+                node = parent;
+            } else {
+                rotateUp(node);
+                rotateUp(node);
+            }
+        }
+    }
+
+    /**
+     * 将 node 旋转到其父节点的位置
+     */
+    private void rotateUp(Entry<K, V> node) {
+        if (node == node.parent.left) {
+            rightRotate(node.parent);
+        } else {
+            leftRotate(node.parent);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth() {
+        return depthRecursive(root);
+    }
+
+    private int depthRecursive(Entry<K, V> root) {
+        if (root == null) {
+            return 0;
+        }
+        return Math.max(depthRecursive(root.left), depthRecursive(root.right)) + 1;
+    }
+
+    /**
+     * 左旋操作，将新root的left给旧root的right，旧root变为新root的left
+     */
+    private void leftRotate(Entry<K, V> root) {
+        Entry<K, V> newRoot = root.right;
+        root.right = newRoot.left;
+
+        if (newRoot.left != null) {
+            newRoot.left.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.left = root;
+        root.parent = newRoot;
+    }
+
+    /**
+     * 右旋操作，将新root的right给旧root的left，旧root变为新root的right
+     */
+    private void rightRotate(Entry<K, V> root) {
+        Entry<K, V> newRoot = root.left;
+        root.left = newRoot.right;
+
+        if (newRoot.right != null) {
+            newRoot.right.parent = root;
+        }
+        newRoot.parent = root.parent;
+
+        if (root.parent == null) {
+            this.root = newRoot;
+        } else if (root == root.parent.left) {
+            root.parent.left = newRoot;
+        } else {
+            root.parent.right = newRoot;
+        }
+        newRoot.right = root;
+        root.parent = newRoot;
+    }
+
+    public static void main(String[] args) {
+        SplayMap<String, Integer> map = new SplayMap<>();
+        map.put("haha", 1532);
+        map.put("hehe", 25432);
+        map.put("test", 3141);
+        map.put("N0tExpectErr0r", 10000);
+        map.put("Test", 10002);
+        map.put("AAA", 12345);
+        map.put("BBB", 14134);
+        map.put("CCC", 131312);
+
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+        map.remove("test");
+        map.remove("BBB");
+        map.remove("ADASD");
+        System.out.println(map.get("hehe"));
+        System.out.println("size:" + map.size());
+        System.out.println("depth:" + map.depth());
+
+        zipfBenchmark();
+    }
+
+    /**
+     * 在 Zipf 分布（s = 1.2，约 1% 的 key 承担 90% 的访问）下比较伸展树与红黑树的查询耗时
+     */
+    private static void zipfBenchmark() {
+        int n = 100000;
+        int lookups = 5000000;
+        Random random = new Random(42);
+
+        // 排名为 i 的 key 被访问的概率与 1 / (i + 1)^1.2 成正比
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, 1.2);
+            cdf[i] = sum;
+        }
+        // 打乱排名与 key 的对应关系，热点 key 随机分布在整棵树中
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        Integer[] workload = new Integer[lookups];
+        for (int i = 0; i < lookups; i++) {
+            double target = random.nextDouble() * sum;
+            int lo = 0;
+            int hi = n - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cdf[mid] < target) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            workload[i] = keys[lo];
+        }
+
+        SplayMap<Integer, Integer> splay = new SplayMap<>();
+        SplayMap<Integer, Integer> semi = new SplayMap<>();
+        semi.setSemiSplay(true);
+        RBMap<Integer, Integer> rb = new RBMap<>();
+        for (int i = 0; i < n; i++) {
+            splay.put(keys[i], i);
+            semi.put(keys[i], i);
+            rb.put(keys[i], i);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long check = 0;
+            for (Integer key : workload) {
+                check += splay.get(key);
+            }
+            long splayTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Integer key : workload) {
+                check += semi.get(key);
+            }
+            long semiTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Integer key : workload) {
+                check += rb.get(key);
+            }
+            long rbTime = System.nanoTime() - start;
+
+            System.out.println("zipf round " + round
+                    + " splay:" + splayTime / lookups + "ns/op"
+                    + " semi-splay:" + semiTime / lookups + "ns/op"
+                    + " rb:" + rbTime / lookups + "ns/op"
+                    + " (" + check + ")");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.n0texpecterr0r.datastructure.wal;
+
+import com.n0texpecterr0r.datastructure.tree.RBMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 带预写日志的红黑树 Map，put 与 remove 返回时修改已经落盘，进程崩溃后重新打开即可恢复
+ *
+ * 目录中有两个文件：snapshot 保存某一时刻的全部数据，wal.log 保存之后的修改。
+ * 打开时先加载快照，再重放日志。checkpoint 把当前数据写入临时文件，fsync 后原子地重命名为
+ * snapshot，再 fsync 所在目录使重命名本身落盘，最后才清空日志；
+ * 任何一步崩溃都只会留下旧快照加完整的日志，或新快照加（可以重复重放的）日志。
+ *
+ * 修改内存中的树与追加日志在同一把锁下进行，保证日志的顺序与树的修改顺序一致；
+ * 等待 fsync 则在锁外，因此并发写入的线程可以共享同一次 fsync（组提交）。
+ * 这意味着修改在落盘之前就对其他线程的 get 可见：put 返回时自己的修改一定已经落盘，
+ * 但 get 读到的值可能来自另一个尚未返回的 put，若此时崩溃，重新打开后这个值不一定存在。
+ * put 或 remove 抛出 IOException 时内存中的修改已经生效而日志未必落盘，此时应当关闭并重新打开
+ */
+public class DurableRBMap<K, V> implements Closeable {
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SNAPSHOT_TEMP = "snapshot.tmp";
+    private static final String LOG = "wal.log";
+
+    private final RBMap<K, V> map;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final Path directory;
+    private final WriteAheadLog log;
+
+    public DurableRBMap(Path directory, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        this(directory, keyCodec, valueCodec, new RBMap<>());
+    }
+
+    public DurableRBMap(Path directory, Codec<K> keyCodec, Codec<V> valueCodec,
+                        Comparator<? super K> comparator) throws IOException {
+        this(directory, keyCodec, valueCodec, new RBMap<>(comparator));
+    }
+
+    private DurableRBMap(Path directory, Codec<K> keyCodec, Codec<V> valueCodec, RBMap<K, V> map) throws IOException {
+        this.map = map;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.directory = directory;
+        Files.createDirectories(directory);
+        Files.deleteIfExists(directory.resolve(SNAPSHOT_TEMP));
+
+        WriteAheadLog.Visitor recover = new WriteAheadLog.Visitor() {
+            @Override
+            public void onPut(byte[] key, byte[] value) {
+                DurableRBMap.this.map.put(keyCodec.decode(key), valueCodec.decode(value));
+            }
+
+            @Override
+            public void onRemove(byte[] key) {
+                DurableRBMap.this.map.remove(keyCodec.decode(key));
+            }
+        };
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (WriteAheadLog snapshotLog = new WriteAheadLog(snapshot)) {
+                snapshotLog.replay(recover);
+            }
+        }
+        this.log = new WriteAheadLog(directory.resolve(LOG));
+        this.log.replay(recover);
+        // 日志文件可能是刚刚创建的，目录项也需要落盘
+        syncDirectory();
+    }
+
+    /**
+     * 返回时修改已经落盘
+     */
+    public void put(K key, V value) throws IOException {
+        long seq;
+        synchronized (map) {
+            map.put(key, value);
+            seq = log.append(WriteAheadLog.PUT, keyCodec.encode(key), valueCodec.encode(value));
+        }
+        log.sync(seq);
+    }
+
+    /**
+     * 返回时修改已经落盘
+     */
+    public void remove(K key) throws IOException {
+        long seq;
+        synchronized (map) {
+            map.remove(key);
+            seq = log.append(WriteAheadLog.REMOVE, keyCodec.encode(key), null);
+        }
+        log.sync(seq);
+    }
+
+    public V get(K key) {
+        synchronized (map) {
+            return map.get(key);
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * 将当前数据写入新的快照并清空日志，期间写操作会被阻塞
+     */
+    public void checkpoint() throws IOException {
+        synchronized (map) {
+            Path temp = directory.resolve(SNAPSHOT_TEMP);
+            Files.deleteIfExists(temp);
+            try (WriteAheadLog snapshot = new WriteAheadLog(temp)) {
+                map.forEach((key, value) ->
+                        snapshot.append(WriteAheadLog.PUT, keyCodec.encode(key), valueCodec.encode(value)));
+                // close 时会 fsync
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE);
+            // 重命名落盘之后才能清空日志，否则崩溃后可能只剩下旧快照和空日志
+            syncDirectory();
+            log.truncate();
+        }
+    }
+
+    /**
+     * fsync 目录，使目录中文件的创建与重命名落盘
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * 日志已追加的记录数与 fsync 次数，二者之比即平均每次 fsync 提交的记录数
+     */
+    public long appended() {
+        return log.appended();
+    }
+
+    public long syncs() {
+        return log.syncs();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("durable-rbmap");
+
+        DurableRBMap<String, Integer> map = new DurableRBMap<>(directory, Codec.STRING, Codec.INTEGER);
+        map.put("apple", 1);
+        map.put("banana", 2);
+        map.put("cherry", 3);
+        map.remove("banana");
+        map.checkpoint();
+        map.put("durian", 4);
+        map.put("apple", 10);
+        // 模拟崩溃：不 close，直接在日志尾部追加半条记录
+        Files.write(directory.resolve(LOG), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        DurableRBMap<String, Integer> recovered = new DurableRBMap<>(directory, Codec.STRING, Codec.INTEGER);
+        System.out.println("apple:" + recovered.get("apple") + " banana:" + recovered.get("banana")
+                + " cherry:" + recovered.get("cherry") + " durian:" + recovered.get("durian")
+                + " size:" + recovered.size());
+        recovered.close();
+        map.close();
+
+        // 组提交：线程越多，每次 fsync 提交的记录越多
+        int writes = 2000;
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            Path dir = Files.createTempDirectory("durable-rbmap");
+            DurableRBMap<Integer, Integer> durable = new DurableRBMap<>(dir, Codec.INTEGER, Codec.INTEGER);
+            CountDownLatch done = new CountDownLatch(threads);
+            int perThread = writes / threads;
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            durable.put(base + i, i);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            System.out.println("threads:" + threads
+                    + " writes/s:" + (long) (durable.appended() * 1e9 / elapsed)
+                    + " fsyncs:" + durable.syncs()
+                    + " records/fsync:" + String.format("%.1f", (double) durable.appended() / durable.syncs()));
+            durable.close();
+        }
+    }
+}
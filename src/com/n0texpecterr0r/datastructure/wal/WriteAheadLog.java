@@ -0,0 +1,223 @@
+package com.n0texpecterr0r.datastructure.wal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制预写日志（Write-Ahead Log），支持组提交
+ *
+ * 每条记录的格式为：
+ * [int 内容长度][int 内容的 CRC32][byte 类型][int key 长度][key][int value 长度][value]
+ * 其中内容指的是类型及之后的部分。崩溃时最后一条记录可能只写了一半，
+ * 重放时遇到长度不足或 CRC 不匹配的记录即认为日志在此结束，并把之后的部分截掉。
+ *
+ * 组提交：append 只把记录放进内存缓冲区并返回序号，sync(seq) 才保证该序号之前的记录落盘。
+ * 同一时刻只有一个线程在执行 fsync，它会把缓冲区中积累的所有记录一次写入并 fsync；
+ * 其他线程在此期间继续 append，然后在 syncLock 上排队，轮到时往往发现自己的记录已经被
+ * 上一批一起落盘了，直接返回，或者由它把这段时间积累的记录作为下一批落盘。
+ * 这样并发写入时一次 fsync 可以覆盖大量记录，而不是每次写入一次 fsync
+ */
+public class WriteAheadLog implements Closeable {
+    public static final byte PUT = 1;
+    public static final byte REMOVE = 2;
+
+    private static final int HEADER = 8;
+
+    private final FileChannel channel;
+
+    // 锁的顺序为 syncLock -> appendLock
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+    private long appendedSeq;
+    private volatile long durableSeq;
+    private long syncs;
+
+    /**
+     * 重放时接收每条记录
+     */
+    public interface Visitor {
+        void onPut(byte[] key, byte[] value);
+
+        void onRemove(byte[] key);
+    }
+
+    public WriteAheadLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    /**
+     * 追加一条记录到内存缓冲区，返回记录的序号，需要调用 sync 才能保证落盘
+     */
+    public long append(byte type, byte[] key, byte[] value) {
+        byte[] val = value == null ? new byte[0] : value;
+        int bodyLength = 1 + 4 + key.length + 4 + val.length;
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(intBytes(key.length));
+        crc.update(key);
+        crc.update(intBytes(val.length));
+        crc.update(val);
+        synchronized (appendLock) {
+            pending = ensure(pending, HEADER + bodyLength);
+            pending.putInt(bodyLength)
+                    .putInt((int) crc.getValue())
+                    .put(type)
+                    .putInt(key.length)
+                    .put(key)
+                    .putInt(val.length)
+                    .put(val);
+            return ++appendedSeq;
+        }
+    }
+
+    /**
+     * 保证序号不超过 seq 的记录都已经落盘
+     */
+    public void sync(long seq) throws IOException {
+        if (durableSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSeq >= seq) {
+                // 已经被其他线程的那一批一起落盘了
+                return;
+            }
+            ByteBuffer batch;
+            long batchSeq;
+            synchronized (appendLock) {
+                batch = pending;
+                pending = spare;
+                batchSeq = appendedSeq;
+            }
+            batch.flip();
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            batch.clear();
+            spare = batch;
+            channel.force(false);
+            syncs++;
+            durableSeq = batchSeq;
+        }
+    }
+
+    /**
+     * 顺序重放日志中的所有完整记录，日志尾部不完整的记录会被截掉
+     */
+    public void replay(Visitor visitor) throws IOException {
+        synchronized (syncLock) {
+            long valid = 0;
+            channel.position(0);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            try {
+                while (true) {
+                    int bodyLength = in.readInt();
+                    int checksum = in.readInt();
+                    if (bodyLength < 9 || valid + HEADER + bodyLength > channel.size()) {
+                        break;
+                    }
+                    byte[] body = new byte[bodyLength];
+                    in.readFully(body);
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    ByteBuffer buffer = ByteBuffer.wrap(body);
+                    byte type = buffer.get();
+                    byte[] key = new byte[buffer.getInt()];
+                    buffer.get(key);
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    if (type == PUT) {
+                        visitor.onPut(key, value);
+                    } else if (type == REMOVE) {
+                        visitor.onRemove(key);
+                    } else {
+                        break;
+                    }
+                    valid += HEADER + bodyLength;
+                }
+            } catch (EOFException e) {
+                // 读到了文件末尾或者不完整的记录
+            }
+            if (valid < channel.size()) {
+                channel.truncate(valid);
+                channel.force(false);
+            }
+            channel.position(valid);
+        }
+    }
+
+    /**
+     * 清空日志，通常在 checkpoint 把数据保存到快照之后调用
+     * 尚未落盘的记录也会被丢弃，并视为已经落盘（它们已经包含在快照中）
+     */
+    public void truncate() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                pending.clear();
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+                durableSeq = appendedSeq;
+            }
+        }
+    }
+
+    /**
+     * 已追加的记录数
+     */
+    public long appended() {
+        synchronized (appendLock) {
+            return appendedSeq;
+        }
+    }
+
+    /**
+     * 执行过的 fsync 次数
+     */
+    public long syncs() {
+        synchronized (syncLock) {
+            return syncs;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long seq;
+        synchronized (appendLock) {
+            seq = appendedSeq;
+        }
+        sync(seq);
+        channel.close();
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buffer, int more) {
+        if (buffer.remaining() >= more) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() << 1, buffer.position() + more));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}